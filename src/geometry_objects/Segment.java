@@ -9,7 +9,9 @@ import geometry_objects.delegates.SegmentDelegate;
 import geometry_objects.delegates.intersections.IntersectionDelegate;
 import geometry_objects.points.Point;
 import utilities.math.MathUtilities;
+import utilities.math.analytic_geometry.DirectionKey;
 import utilities.math.analytic_geometry.GeometryUtilities;
+import utilities.math.analytic_geometry.LineKey;
 
 /**
  * Implements additional functionality to be utilized by Preprocessor.
@@ -24,6 +26,12 @@ public class Segment extends GeometricObject
 	protected double _length;
 	protected double _slope;
 
+	// The line through this segment; computed on first request
+	protected LineKey _lineKey;
+
+	// Computed on first request (0 until then); the endpoints never change
+	protected int _hashCode;
+
 	public Point getPoint1() { return _point1; }
 	public Point getPoint2() { return _point2; }
 	public double length() { return _length; }
@@ -33,6 +41,23 @@ public class Segment extends GeometricObject
 		catch(ArithmeticException ae) { return Double.POSITIVE_INFINITY; }
 	}
 
+	/**
+	 * @return the canonical key of the line through this segment; null if the endpoints coincide
+	 */
+	public LineKey getLineKey()
+	{
+		if (_lineKey == null) _lineKey = LineKey.of(_point1, _point2);
+
+		return _lineKey;
+	}
+
+	/**
+	 * @param vertex -- one of the endpoints of this segment
+	 * @return the canonical direction of this segment as a ray from @vertex; rays from
+	 *         the same vertex have the same direction exactly when they overlay
+	 */
+	public DirectionKey getDirectionKey(Point vertex) { return DirectionKey.of(getLineKey(), vertex, other(vertex)); }
+
 	public Segment(Segment in) { this(in._point1, in._point2); }
 	public Segment(Point p1, Point p2)
 	{
@@ -98,11 +123,14 @@ public class Segment extends GeometricObject
 	@Override
 	public boolean equals(Object obj)
 	{
-		if (obj == null) return false;
+		if (this == obj) return true;
 
 		if (!(obj instanceof Segment)) return false;
 		Segment that = (Segment)obj;
 
+		// Equal segments hash alike; with hashes cached, most unequal segments stop here
+		if (this.hashCode() != that.hashCode()) return false;
+
 		return this.has(that.getPoint1()) && this.has(that.getPoint2());
 	}
 
@@ -143,7 +171,15 @@ public class Segment extends GeometricObject
 	@Override
 	public int hashCode()
 	{
-		return _point1.hashCode() +_point2.hashCode();
+		if (_hashCode == 0) {
+			// The same for both directions of the segment
+			long low = Math.min(_point1.getKey(), _point2.getKey());
+			long high = Math.max(_point1.getKey(), _point2.getKey());
+
+			_hashCode = Long.hashCode(low * 0x9E3779B97F4A7C15L + high);
+		}
+
+		return _hashCode;
 	}
 
 	/**
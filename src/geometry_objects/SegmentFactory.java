@@ -0,0 +1,125 @@
+package geometry_objects;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import geometry_objects.points.Point;
+
+/**
+ * Interns segments: one Segment object per unordered pair of endpoints.
+ *
+ * Points are numbered in the order they are first seen. A segment is keyed by the ids of its
+ * endpoints, smaller first, packed into a long; asking for the same segment again (in either
+ * direction) returns the object made the first time.
+ */
+public class SegmentFactory
+{
+	protected Map<Point, Integer> _pointIds;
+	protected List<Point> _points;
+
+	protected Map<Long, Segment> _segments;
+
+	public SegmentFactory()
+	{
+		_pointIds = new HashMap<Point, Integer>();
+		_points = new ArrayList<Point>();
+		_segments = new HashMap<Long, Segment>();
+	}
+
+	/**
+	 * @return the number of distinct segments made
+	 */
+	public int size() { return _segments.size(); }
+
+	/**
+	 * @return the distinct segments made, in no particular order
+	 */
+	public Collection<Segment> getSegments() { return _segments.values(); }
+
+	/**
+	 * @param pt -- a point
+	 * @return the id of @pt; numbered now if @pt has not been seen
+	 */
+	public int getId(Point pt)
+	{
+		if(pt == null) throw new NullPointerException();
+
+		Integer id = _pointIds.get(pt);
+		if(id != null) return id;
+
+		_pointIds.put(pt, _points.size());
+		_points.add(pt);
+
+		return _points.size() - 1;
+	}
+
+	/**
+	 * @param id -- a point id
+	 * @return the point first seen with that id
+	 */
+	public Point getPoint(int id) { return _points.get(id); }
+
+	/**
+	 * @return the number of distinct points seen
+	 */
+	public int numPoints() { return _points.size(); }
+
+	/**
+	 * @param p1 -- an endpoint
+	 * @param p2 -- an endpoint
+	 * @return THE segment between @p1 and @p2; made now if it does not exist, between the points
+	 *         first seen at those places (not @p1 and @p2 themselves, which may be unnamed copies)
+	 */
+	public Segment get(Point p1, Point p2)
+	{
+		int id1 = getId(p1);
+		int id2 = getId(p2);
+
+		return _segments.computeIfAbsent(key(id1, id2), key -> new Segment(_points.get(id1), _points.get(id2)));
+	}
+
+	/**
+	 * @param segment -- a segment
+	 * @return THE segment equal to @segment; @segment itself if there was none
+	 */
+	public Segment intern(Segment segment)
+	{
+		if(segment == null) throw new NullPointerException();
+
+		long key = key(getId(segment.getPoint1()), getId(segment.getPoint2()));
+
+		Segment existing = _segments.putIfAbsent(key, segment);
+
+		return existing == null ? segment : existing;
+	}
+
+	/**
+	 * @param p1 -- an endpoint
+	 * @param p2 -- an endpoint
+	 * @return the segment between @p1 and @p2; null if it has not been made
+	 */
+	public Segment lookup(Point p1, Point p2)
+	{
+		Integer id1 = _pointIds.get(p1);
+		Integer id2 = _pointIds.get(p2);
+		if(id1 == null || id2 == null) return null;
+
+		return _segments.get(key(id1, id2));
+	}
+
+	public boolean contains(Point p1, Point p2) { return lookup(p1, p2) != null; }
+
+	/**
+	 * @return the ids of both endpoints, smaller first, packed into a long
+	 */
+	private static long key(int id1, int id2)
+	{
+		int low = Math.min(id1, id2);
+		int high = Math.max(id1, id2);
+
+		return ((long) low << 32) | high;
+	}
+}
@@ -82,6 +82,10 @@ public class Triangle
 				  _point2.equals(_segmentB.getPoint1()) ? _segmentB.getPoint2() : _segmentB.getPoint1();
 	}
 
+	public Point getPoint1() { return _point1; }
+	public Point getPoint2() { return _point2; }
+	public Point getPoint3() { return _point3; }
+
 	/*
 	 * @param pt -- a point 
 	 * @return true if @pt is one of the vertices
@@ -15,6 +15,8 @@ import exceptions.FactException;
 import geometry_objects.Segment;
 import geometry_objects.points.Point;
 import utilities.math.MathUtilities;
+import utilities.math.analytic_geometry.DirectionKey;
+import utilities.math.analytic_geometry.GeometryUtilities;
 
 public class Angle implements Comparable<Angle>
 {
@@ -31,6 +33,17 @@ public class Angle implements Comparable<Angle>
 	public double getMeasure() { return _measure; }
 
 	public Point getVertex() { return _vertex; }
+
+	// The equivalence class of this angle (see AngleEquivalenceClasses)
+	protected AngleKey _key;
+	public AngleKey getKey() { return _key; }
+
+	// The lengths of the rays in the first and second directions of the key, on the
+	// epsilon grid (MathUtilities.quantize): where the endpoints lie along their rays
+	protected long _firstLength;
+	protected long _secondLength;
+	public long getFirstLength() { return _firstLength; }
+	public long getSecondLength() { return _secondLength; }
 	
 	public Angle(Segment ray1, Segment ray2)  throws FactException
 	{
@@ -62,6 +75,16 @@ public class Angle implements Comparable<Angle>
 		_ray1 = r1;
 		_ray2 = r2;
 
+		DirectionKey direction1 = r1.getDirectionKey(vertex);
+		DirectionKey direction2 = r2.getDirectionKey(vertex);
+		_key = new AngleKey(vertex, direction1, direction2);
+
+		long length1 = MathUtilities.quantize(GeometryUtilities.distance(vertex, other1));
+		long length2 = MathUtilities.quantize(GeometryUtilities.distance(vertex, other2));
+		boolean inOrder = _key.getFirst() == direction1;
+		_firstLength = inOrder ? length1 : length2;
+		_secondLength = inOrder ? length2 : length1;
+
 		_measure = Math.toDegrees(findAngle(_ray1Endpoint, _vertex, _ray2Endpoint));
 
 		if (_measure <= 0) throw new FactException("Measure of " + this.toString() + " is ZERO");
@@ -83,7 +106,7 @@ public class Angle implements Comparable<Angle>
 		double v2x = c.getX() - b.getX();
 		double v2y = c.getY() - b.getY();
 		double dotProd = v1x * v2x + v1y * v2y;
-		double cosAngle = dotProd / (Point.distance(a, b) * Point.distance(b, c));
+		double cosAngle = dotProd / (GeometryUtilities.distance(a, b) * GeometryUtilities.distance(b, c));
 
 		// Avoid minor calculation issues and retarget the given value to specific angles. 
 		// 0 or 180 degrees
@@ -171,6 +194,10 @@ public class Angle implements Comparable<Angle>
 	}
 	
 	/**
+	 * Angles are equal when they are the same angle: the same vertex and the same two ray
+	 * endpoints (in either order). Angles that merely overlay each other (e.g., BAE and CAF
+	 * in the figure of AngleKey) are not equal; they share a class instead (see getKey).
+	 * 
 	 * @param obj: angle to be compared 
 	 * @return true if this equals obj; False otherwise
 	 */
@@ -183,6 +210,16 @@ public class Angle implements Comparable<Angle>
 		
 		Angle other = (Angle) obj;
 		
-		return overlays(other);
+		if (!_vertex.equals(other._vertex)) return false;
+
+		return (_ray1Endpoint.equals(other._ray1Endpoint) && _ray2Endpoint.equals(other._ray2Endpoint)) ||
+			   (_ray1Endpoint.equals(other._ray2Endpoint) && _ray2Endpoint.equals(other._ray1Endpoint));
+	}
+
+	@Override
+	public int hashCode()
+	{
+		// Symmetric in the endpoints, as equals is
+		return 31 * _vertex.hashCode() + _ray1Endpoint.hashCode() + _ray2Endpoint.hashCode();
 	}
 }
@@ -19,8 +19,28 @@ import utilities.eq_classes.EquivalenceClasses;
  * 
  *   canonical = BAE
  *   rest = BAF, CAE, DAE, CAF, DAF
+ *
+ * Angles are in the same class exactly when they have the same AngleKey (vertex and the
+ * directions of both rays), so the class of an angle is found by hashing its key, never by
+ * comparing it against the classes there are: add and contains take constant time however
+ * many classes the figure has.
  */
 public class AngleEquivalenceClasses extends EquivalenceClasses<Angle>
 {
-	// TODO
-}
\ No newline at end of file
+	public AngleEquivalenceClasses()
+	{
+		super(new AngleStructureComparator());
+	}
+
+	@Override
+	protected AngleLinkedEquivalenceClass createClass()
+	{
+		return new AngleLinkedEquivalenceClass(_comparator);
+	}
+
+	@Override
+	protected AngleKey classKey(Angle angle)
+	{
+		return angle.getKey();
+	}
+}
@@ -0,0 +1,71 @@
+package geometry_objects.angle;
+
+import geometry_objects.points.Point;
+import utilities.math.analytic_geometry.DirectionKey;
+
+/**
+ * The equivalence class of an angle, usable as a hash key: its vertex and the directions
+ * (DirectionKey) of its two rays, as an unordered pair.
+ *
+ * Two angles have equal keys exactly when each ray of one overlays a ray of the other; e.g.,
+ * BAE, BAF, CAE, DAF below all have the key (A, A->B, A->E).
+ *
+ *    A-------B----C-----------D
+ *     \
+ *      \
+ *       E
+ *        \
+ *         F
+ *
+ * The directions are kept in DirectionKey order, so getFirst and getSecond are the same for
+ * every angle of a class whichever way round its rays were given.
+ */
+public class AngleKey
+{
+	protected final Point _vertex;
+	protected final DirectionKey _first;
+	protected final DirectionKey _second;
+
+	/**
+	 * @param vertex -- the vertex of an angle
+	 * @param direction1 -- the direction of one ray from @vertex
+	 * @param direction2 -- the direction of the other ray from @vertex
+	 */
+	public AngleKey(Point vertex, DirectionKey direction1, DirectionKey direction2)
+	{
+		if (vertex == null || direction1 == null || direction2 == null) throw new NullPointerException();
+
+		_vertex = vertex;
+
+		boolean inOrder = direction1.compareTo(direction2) <= 0;
+		_first = inOrder ? direction1 : direction2;
+		_second = inOrder ? direction2 : direction1;
+	}
+
+	public Point getVertex() { return _vertex; }
+	public DirectionKey getFirst() { return _first; }
+	public DirectionKey getSecond() { return _second; }
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (!(obj instanceof AngleKey)) return false;
+
+		if (this == obj) return true;
+
+		AngleKey that = (AngleKey) obj;
+		return _vertex.equals(that._vertex) && _first.equals(that._first) && _second.equals(that._second);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return (31 * _vertex.hashCode() + _first.hashCode()) * 31 + _second.hashCode();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "AngleKey(" + _vertex.getName() + ", " + _first + ", " + _second + ")";
+	}
+}
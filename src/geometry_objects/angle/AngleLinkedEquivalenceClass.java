@@ -1,5 +1,7 @@
 package geometry_objects.angle;
 
+import java.util.Comparator;
+
 import geometry_objects.angle.comparators.AngleStructureComparator;
 import utilities.eq_classes.LinkedEquivalenceClass;
 
@@ -20,10 +22,34 @@ import utilities.eq_classes.LinkedEquivalenceClass;
  *    
  *    We want the 'smallest' angle structurally to be the canonical element of an
  *    equivalence class.
+ *
+ * An angle belongs to the class when it has the same AngleKey as the canonical element;
+ * the comparator then only ever compares angles of one class (never MAX_VALUE). The
+ * canonical element is kept as angles are added: one comparing -1 against it takes its place.
  * 
  * @author XXX
  */
 public class AngleLinkedEquivalenceClass extends LinkedEquivalenceClass<Angle>
 {
-    // TODO
-}
\ No newline at end of file
+	public AngleLinkedEquivalenceClass()
+	{
+		this(new AngleStructureComparator());
+	}
+
+	public AngleLinkedEquivalenceClass(Comparator<Angle> comparator)
+	{
+		super(comparator);
+	}
+
+	/**
+	 * @param angle -- an angle
+	 * @return true if @angle has the key of this class (any angle may start an empty one)
+	 */
+	@Override
+	public boolean belongs(Angle angle)
+	{
+		if (angle == null) return false;
+
+		return isEmpty() || _canonical.getKey().equals(angle.getKey());
+	}
+}
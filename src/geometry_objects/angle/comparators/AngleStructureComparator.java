@@ -13,11 +13,7 @@ package geometry_objects.angle.comparators;
 
 import java.util.Comparator;
 
-import geometry_objects.Segment;
 import geometry_objects.angle.Angle;
-import geometry_objects.points.Point;
-import utilities.math.MathUtilities;
-import utilities.math.analytic_geometry.GeometryUtilities;
 
 public class AngleStructureComparator implements Comparator<Angle>
 {
@@ -49,6 +45,10 @@ public class AngleStructureComparator implements Comparator<Angle>
 
    	 *     CAE inconclusive BAF
 	 * 
+	 * Nothing is computed here: whether the angles overlay is whether their keys (Angle.getKey)
+	 * are equal, and which rays are subsegments follows from the ray lengths each angle keeps,
+	 * in the order of its key's directions, on the epsilon grid.
+	 * 
 	 * @param left -- an angle
 	 * @param right -- an angle
 	 * @return -- according to the algorithm above:
@@ -60,6 +60,18 @@ public class AngleStructureComparator implements Comparator<Angle>
 	@Override
 	public int compare(Angle left, Angle right)
 	{
-        // TODO
+		if (left == null || right == null) return STRUCTURALLY_INCOMPARABLE;
+
+		if (!left.getKey().equals(right.getKey())) return STRUCTURALLY_INCOMPARABLE;
+
+		int first = Long.compare(left.getFirstLength(), right.getFirstLength());
+		int second = Long.compare(left.getSecondLength(), right.getSecondLength());
+
+		// Both rays agree (or one is the same length): that is the answer
+		if (first == second || second == 0) return first;
+		if (first == 0) return second;
+
+		// One ray longer, the other shorter
+		return 0;
 	}
 }
@@ -1,7 +1,7 @@
 package geometry_objects.delegates;
 
 import geometry_objects.Segment;
-import utilities.math.MathUtilities;
+import utilities.math.analytic_geometry.LineKey;
 
 /*
  * A processing, delegation class.
@@ -12,24 +12,15 @@ public class LineDelegate
 {
     /*
      * @param that -- another segment
-     * @return true / false if the two lines are strictly collinear
+     * @return true / false if the two lines are strictly collinear (the same line; parallel is not enough)
      */
     public static boolean areCollinear(Segment thisS, Segment that)
     {
-        // If the segments are vertical, just compare the X values of one point of each
-        // Also ensure that the segments have some overlap
-        if (thisS.isVertical() && that.isVertical())
-        {
-            return MathUtilities.doubleEquals(thisS.getPoint1().getX(), that.getPoint1().getX());
-        }
+        LineKey thisLine = thisS.getLineKey();
 
-        // If the segments are horizontal, just compare the Y values of one point of each; this is redundant
-        if (thisS.isHorizontal() && that.isHorizontal())
-        {
-            return MathUtilities.doubleEquals(thisS.getPoint1().getY(), that.getPoint2().getY());
-        }
+        // A segment without length lies on no one line
+        if (thisLine == null) return false;
 
-        // Slopes equate
-        return MathUtilities.doubleEquals(thisS.slope(), that.slope());
+        return thisLine.equals(that.getLineKey());
     }
 }
@@ -2,7 +2,7 @@ package geometry_objects.delegates.intersections;
 
 import geometry_objects.points.Point;
 import geometry_objects.Segment;
-import utilities.OutTriple;
+import utilities.math.MathUtilities;
 
 /*
  * This class treats all lines as infinite (in both directions)
@@ -13,7 +13,7 @@ public class LineIntersectionDelegate
      * <Line, Line> intersection
      * @param thisS -- (this Segment)
      * @param that -- a Segment to intersect with
-     * @return the point at which these lines (infinite) intersection; null for coinciding lines
+     * @return the point at which these lines (infinite) intersection; null for coinciding (or parallel) lines
      */
     public static Point intersection(Segment thisS, Segment that)
     {
@@ -24,103 +24,112 @@ public class LineIntersectionDelegate
         Point shared = thisS.sharedVertex(that);
         if (shared != null) return shared;
 
-        double a, b, c, d, e, f;
-        final String name = "";
+        double[] out = new double[2];
+        if (!intersection(thisS.getPoint1().getX(), thisS.getPoint1().getY(),
+                          thisS.getPoint2().getX(), thisS.getPoint2().getY(),
+                          that.getPoint1().getX(), that.getPoint1().getY(),
+                          that.getPoint2().getX(), that.getPoint2().getY(), out)) return null;
 
-        if (thisS.isVertical() && that.isHorizontal()) return new Point(name, thisS.getPoint1().getX(), that.getPoint1().getY());
+        return new Point(out[0], out[1]);
+    }
+
+    /*
+     * <Line, Line> intersection on raw coordinates; allocates nothing.
+     *
+     * Line 1 passes through (x1, y1) and (x2, y2); line 2 through (x3, y3) and (x4, y4).
+     * A vertical (horizontal) line fixes x (y) exactly; otherwise each line is written as
+     *
+     *     ax + y = e      (a = -slope)
+     *
+     * and the pair is solved by Cramer's rule.
+     *
+     * @param out -- a caller-supplied buffer of (at least) 2 receiving x and y
+     * @return false if the lines are parallel (out is not written)
+     */
+    public static boolean intersection(double x1, double y1, double x2, double y2,
+                                       double x3, double y3, double x4, double y4, double[] out)
+    {
+        boolean vertical1 = MathUtilities.doubleEquals(x1, x2);
+        boolean vertical2 = MathUtilities.doubleEquals(x3, x4);
+        boolean horizontal1 = MathUtilities.doubleEquals(y1, y2);
+        boolean horizontal2 = MathUtilities.doubleEquals(y3, y4);
 
-        if (that.isVertical() && thisS.isHorizontal()) return new Point(name, that.getPoint1().getX(), thisS.getPoint1().getY());
+        double x, y;
 
-        OutTriple<Double, Double, Double> out = new OutTriple<Double, Double, Double>(); 
-        if (thisS.isVertical())
+        if (vertical1 && horizontal2)
         {
-            makeLine(that.getPoint1().getX(), that.getPoint1().getY(), that.getPoint2().getX(), that.getPoint2().getY(), out);// a, out b, out e);
-            a = out.getFirst();
-            b = out.getSecond();
-            e = out.getThird();
-            return new Point(name, thisS.getPoint1().getX(), evaluateYGivenX(a, b, e, thisS.getPoint1().getX()));
+            x = x1;
+            y = y3;
         }
-        if (that.isVertical())
+        else if (vertical2 && horizontal1)
         {
-            makeLine(thisS.getPoint1().getX(), thisS.getPoint1().getY(), thisS.getPoint2().getX(), thisS.getPoint2().getY(), out);
-            a = out.getFirst();
-            b = out.getSecond();
-            e = out.getThird();
-            return new Point(name, that.getPoint1().getX(), evaluateYGivenX(a, b, e, that.getPoint1().getX()));
+            x = x3;
+            y = y1;
         }
-        if (thisS.isHorizontal())
+        else if (vertical1)
         {
-            makeLine(that.getPoint1().getX(), that.getPoint1().getY(), that.getPoint2().getX(), that.getPoint2().getY(), out);
-            a = out.getFirst();
-            b = out.getSecond();
-            e = out.getThird();
-
-            return new Point(name, evaluateXGivenY(a, b, e, thisS.getPoint1().getY()), thisS.getPoint1().getY());
+            x = x1;
+            y = evaluateYGivenX(x3, y3, x4, y4, x);
         }
-        if (that.isHorizontal())
+        else if (vertical2)
         {
-            makeLine(thisS.getPoint1().getX(), thisS.getPoint1().getY(), thisS.getPoint2().getX(), thisS.getPoint2().getY(), out);
-            a = out.getFirst();
-            b = out.getSecond();
-            e = out.getThird();
-
-            return new Point(name, evaluateXGivenY(a, b, e, that.getPoint1().getY()), that.getPoint1().getY());
+            x = x3;
+            y = evaluateYGivenX(x1, y1, x2, y2, x);
+        }
+        else if (horizontal1)
+        {
+            y = y1;
+            x = evaluateXGivenY(x3, y3, x4, y4, y);
+        }
+        else if (horizontal2)
+        {
+            y = y3;
+            x = evaluateXGivenY(x1, y1, x2, y2, y);
+        }
+        else
+        {
+            //
+            // ax + y = e
+            // cx + y = f
+            //
+            double a = -slope(x1, y1, x2, y2);
+            double e = y2 + a * x2;
+            double c = -slope(x3, y3, x4, y4);
+            double f = y4 + c * x4;
+
+            double overallDeterminant = a - c;
+            x = (e - f) / overallDeterminant;
+            y = (a * f - e * c) / overallDeterminant;
         }
 
-        //
-        // ax + by = e
-        // cx + dy = f
-        // 
-
-        makeLine(thisS.getPoint1().getX(), thisS.getPoint1().getY(), thisS.getPoint2().getX(), thisS.getPoint2().getY(), out);
-        a = out.getFirst();
-        b = out.getSecond();
-        e = out.getThird();
-
-        makeLine(that.getPoint1().getX(), that.getPoint1().getY(), that.getPoint2().getX(), that.getPoint2().getY(), out);
-        c = out.getFirst();
-        d = out.getSecond();
-        f = out.getThird();
-
-        
-        double overallDeterminant = a * d - b * c;
-        double x = determinant(e, b, f, d) / overallDeterminant;
-        double y = determinant(a, e, c, f) / overallDeterminant;
+        // Parallel lines meet nowhere (or everywhere)
+        if (!Double.isFinite(x) || !Double.isFinite(y)) return false;
 
-        return new Point(name, x, y);
+        out[0] = x;
+        out[1] = y;
+        return true;
     }
-    
-    //
-    // Determine the intersection point of the two segments
-    //
-    //
-    // | a b |
-    // | c d |
-    //
-    private static double determinant(double a, double b, double c, double d)
+
+    private static double slope(double x1, double y1, double x2, double y2)
     {
-        return a * d - b * c;
+        return (y2 - y1) / (x2 - x1);
     }
 
-    private static void makeLine(double x_1, double y_1, double x_2, double y_2, OutTriple<Double, Double, Double> out)
+    // y on the line through (x1, y1) and (x2, y2) at x
+    private static double evaluateYGivenX(double x1, double y1, double x2, double y2, double x)
     {
-        double slope = (y_2 - y_1) / (x_2 - x_1);
-        double a = - slope;
-        double b = 1;
-        double c = y_2 - slope * x_2;
+        double a = -slope(x1, y1, x2, y2);
+        double e = y2 + a * x2;
 
-        out.set(a, b, c);
+        return e - a * x;
     }
 
-    private static double evaluateYGivenX(double a, double b, double e, double x)
+    // x on the line through (x1, y1) and (x2, y2) at y
+    private static double evaluateXGivenY(double x1, double y1, double x2, double y2, double y)
     {
-        // ax + by = e
-        return (e - a * x) / b;
-    }
+        double a = -slope(x1, y1, x2, y2);
+        double e = y2 + a * x2;
 
-    private static double evaluateXGivenY(double a, double b, double e, double y)
-    {
-        // ax + by = e
-        return (e - b * y) / a;
+        return (e - y) / a;
     }
 }
@@ -3,6 +3,8 @@ package geometry_objects.delegates.intersections;
 import geometry_objects.delegates.FigureDelegate;
 import geometry_objects.points.Point;
 import geometry_objects.Segment;
+import utilities.math.MathUtilities;
+import utilities.math.analytic_geometry.GeometryUtilities;
 
 public class SegmentIntersectionDelegate extends FigureDelegate
 {
@@ -14,15 +16,56 @@ public class SegmentIntersectionDelegate extends FigureDelegate
      */
     public static Point findIntersection(Segment thisS, Segment that)
     {
+        double[] out = new double[2];
+
+        if (!findIntersection(thisS, that, out)) return null;
+
+        return new Point(out[0], out[1]);
+    }
+
+    /*
+     * <Segment, Segment> intersection into a caller-supplied buffer; allocates nothing.
+     * @param thisS -- (this Segment)
+     * @param that -- a Segment to intersect with
+     * @param out -- a buffer of (at least) 2 receiving the x and y of the intersection
+     * @return true if the segments cross strictly between the endpoints of both
+     */
+    public static boolean findIntersection(Segment thisS, Segment that, double[] out)
+    {
+        // Segments meeting at an endpoint do not cross in the middle of both
+        if (thisS.sharedVertex(that) != null) return false;
+
+        double x1 = thisS.getPoint1().getX(), y1 = thisS.getPoint1().getY();
+        double x2 = thisS.getPoint2().getX(), y2 = thisS.getPoint2().getY();
+        double x3 = that.getPoint1().getX(),  y3 = that.getPoint1().getY();
+        double x4 = that.getPoint2().getX(),  y4 = that.getPoint2().getY();
+
         // <line, line> intersection
-        Point inter = LineIntersectionDelegate.intersection(thisS, that);
- 
+        if (!LineIntersectionDelegate.intersection(x1, y1, x2, y2, x3, y3, x4, y4, out)) return false;
+
         // Point lies on both segments
-        
-        if (!thisS.pointLiesBetweenEndpoints(inter)) return null;
+        return liesBetween(out[0], out[1], x1, y1, x2, y2) &&
+               liesBetween(out[0], out[1], x3, y3, x4, y4);
+    }
+
+    /*
+     * Segment.pointLiesBetweenEndpoints on raw coordinates
+     * @return true if (x, y) is on the segment from (ax, ay) to (bx, by), excluding the endpoints
+     */
+    private static boolean liesBetween(double x, double y, double ax, double ay, double bx, double by)
+    {
+        if (samePoint(x, y, ax, ay)) return false;
+        if (samePoint(x, y, bx, by)) return false;
 
-        if (!that.pointLiesBetweenEndpoints(inter)) return null;
-        
-        return inter;        
+        return GeometryUtilities.between(x, y, ax, ay, bx, by);
+    }
+
+    /*
+     * Point.equals on raw coordinates
+     */
+    private static boolean samePoint(double x1, double y1, double x2, double y2)
+    {
+        return MathUtilities.quantize(x1) == MathUtilities.quantize(x2) &&
+               MathUtilities.quantize(y1) == MathUtilities.quantize(y2);
     }
 }
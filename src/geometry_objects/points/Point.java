@@ -26,6 +26,14 @@ public class Point implements Comparable<Point>
 	protected String _name; 
 	public String getName() { return _name; }
 
+	// Coordinates snapped to the epsilon grid; two points are equal when these agree
+	protected long _qx;
+	protected long _qy;
+
+	// Both grid coordinates combined into one value; computed once, used for hashing
+	protected long _key;
+	public long getKey() { return _key; }
+
 	// BasicPoint objects are named points (from input)
 	// ImpliedPoint objects are unnamed points (from input)
 	public boolean isGenerated() { return false; }
@@ -47,6 +55,20 @@ public class Point implements Comparable<Point>
 		_name = (name == null || name == "") ? ANONYMOUS : name;
 		this._x = x;
 		this._y = y;
+
+		this._qx = MathUtilities.quantize(x);
+		this._qy = MathUtilities.quantize(y);
+		this._key = key(_qx, _qy);
+	}
+
+	/**
+	 * @param qx -- x coordinate on the epsilon grid
+	 * @param qy -- y coordinate on the epsilon grid
+	 * @return the hash key of the grid point (qx, qy)
+	 */
+	public static long key(long qx, long qy)
+	{
+		return qx * 0x9E3779B97F4A7C15L + qy;
 	}
 
 	/**
@@ -59,8 +81,7 @@ public class Point implements Comparable<Point>
 
 	@Override
 	public int hashCode() {
-		return Double.valueOf(MathUtilities.removeLessEpsilon(_x)).hashCode() +
-			   Double.valueOf(MathUtilities.removeLessEpsilon(_y)).hashCode();
+		return Long.hashCode(_key);
 	}
 
 	/**
@@ -91,6 +112,8 @@ public class Point implements Comparable<Point>
 	}
 	
 	/**
+	 * Points are equal when their coordinates snap to the same point of the epsilon grid;
+	 * this agrees with hashCode, so equal points always share a bucket.
 	 * @param obj: point being compared.
 	 * @return true id the objects are equal, false otherwise.
 	 **/
@@ -101,8 +124,7 @@ public class Point implements Comparable<Point>
 		if(this == obj) return true;
 
 		Point point = (Point) obj;
-		return MathUtilities.doubleEquals(this.getX(), point.getX())&&
-				MathUtilities.doubleEquals(this.getY(), point.getY());
+		return this._qx == point._qx && this._qy == point._qy;
 	}
 	
 	@Override
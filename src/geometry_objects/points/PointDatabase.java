@@ -26,6 +26,18 @@ public class PointDatabase {
 
 	public int size() { return _factory.size(); }
 
+	/**
+	 * @return how many names the database has generated
+	 */
+	public int getGeneratedCount() { return _factory.getGeneratedCount(); }
+
+	/**
+	 * Replaces the contents with already named points, in order, as saved from another run.
+	 * @param points -- the points of the database
+	 * @param generated -- how many names had been generated
+	 */
+	public void restore(List<Point> points, int generated) { _factory.restore(points, generated); }
+
 	/**
 	 * Adds a point to the database.
 	 * @param name
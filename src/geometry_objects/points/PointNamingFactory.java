@@ -226,6 +226,36 @@ public class PointNamingFactory
 		}
 	}
 
+	/**
+	 * @return how many names have been generated so far; the position in the sequence
+	 *         A..Z..AA..ZZ.. of the next generated name
+	 */
+	public int getGeneratedCount()
+	{
+		return (_numLetters - 1) * (END_LETTER - START_LETTER + 1) + (_currentName.charAt(0) - START_LETTER);
+	}
+
+	/**
+	 * Replaces the database with points that are already named, kept in the given order
+	 * and not renamed; generated names resume at position generated of the sequence.
+	 * Brings back a database saved from another run.
+	 *
+	 * @param points: the points of the database, in order
+	 * @param generated: how many names had been generated (see getGeneratedCount)
+	 */
+	public void restore(List<Point> points, int generated)
+	{
+		_database.clear();
+		for(Point _point: points) {
+			_database.put(_point, _point);
+		}
+
+		int letters = END_LETTER - START_LETTER + 1;
+
+		_numLetters = generated / letters + 1;
+		_currentName = "" + (char) (START_LETTER + generated % letters);
+	}
+
 	/**
 	 * @return The entire database of points in a Set.
 	 */
@@ -15,6 +15,7 @@ import java.util.Set;
 
 import components.FigureNode;
 import geometry_objects.Segment;
+import geometry_objects.SegmentFactory;
 import geometry_objects.points.Point;
 import geometry_objects.points.PointDatabase;
 import input.builder.GeometryBuilder;
@@ -95,14 +96,16 @@ public class InputFacade
     private static Set<Segment> convertToSegments (SegmentNodeDatabase snd)
     {
     	Set<Segment> segments = new LinkedHashSet<Segment>();
+    	SegmentFactory factory = new SegmentFactory();
     	
-    	for(SegmentNode s : snd.asUniqueSegmentList()) 
+    	//every edge is listed in both directions; interning keeps the first of the two
+    	for(SegmentNode s : snd.asSegmentList()) 
     	{
     		//create new Points from the SegmentNode's two PointNodes
     		Point point1 = new Point(s.getPoint1().getName(), s.getPoint1().getX(), s.getPoint1().getY());
     		Point point2 = new Point(s.getPoint2().getName(), s.getPoint2().getX(), s.getPoint2().getY());
     		
-    		segments.add(new Segment(point1,point2));
+    		segments.add(factory.get(point1, point2));
     	}
     	
     	return segments;
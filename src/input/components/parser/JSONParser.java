@@ -17,6 +17,7 @@ import input.components.exception.ParseException;
 import input.components.point.PointNode;
 import input.components.point.PointNodeDatabase;
 import input.components.segment.SegmentNodeDatabase;
+import utilities.jfr.JSONParseEvent;
 
 /**
  * This class will read a JSON data file and create an abstract syntax tree structure 
@@ -53,6 +54,9 @@ public class JSONParser
 	{
 		if(str.equals("{}")) error("JSON is empty");// 
 
+		JSONParseEvent event = new JSONParseEvent();
+		event.begin();
+
 		// Parsing is accomplished via the JSONTokenizer class.
 		JSONTokener tokenizer = new JSONTokener(str);
 		JSONObject  JSONroot = ((JSONObject)tokenizer.nextValue()).getJSONObject("Figure");
@@ -61,7 +65,34 @@ public class JSONParser
 		PointNodeDatabase points = getPoints(JSONroot);
 		SegmentNodeDatabase segments = getSegmentDatabase(JSONroot.getJSONArray("Segments"), points);
 
-		return _builder.buildFigureNode(description, points, segments);
+		ComponentNode figure = _builder.buildFigureNode(description, points, segments);
+
+		event.end();
+		if(event.shouldCommit()) {
+			event.figure = description;
+			event.points = JSONroot.getJSONArray("Points").length();
+			event.segments = countSegmentEntries(JSONroot.getJSONArray("Segments"));
+			event.length = str.length();
+			event.commit();
+		}
+
+		return figure;
+	}
+
+	/**
+	 * @param segmentList: JSONArray of the overall segments list
+	 * @return the number of entries in all the adjacency lists
+	 */
+	private int countSegmentEntries(JSONArray segmentList) {
+		int count = 0;
+
+		for(int i = 0; i < segmentList.length(); i++) {
+			JSONObject subList = segmentList.getJSONObject(i);
+
+			for(String head : subList.keySet()) count += subList.getJSONArray(head).length();
+		}
+
+		return count;
 	}
 
 	/**
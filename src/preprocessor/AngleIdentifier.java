@@ -1,5 +1,7 @@
 package preprocessor;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -7,15 +9,26 @@ import exceptions.FactException;
 import geometry_objects.Segment;
 import geometry_objects.angle.Angle;
 import geometry_objects.angle.AngleEquivalenceClasses;
+import geometry_objects.points.Point;
+import utilities.jfr.AngleIdentificationEvent;
+import utilities.math.analytic_geometry.DirectionKey;
 
 public class AngleIdentifier
 {
 	protected AngleEquivalenceClasses _angles;
 	protected Map<Segment, Segment> _segments; // The set of ALL segments for this figure
 
+	protected String _description; // Description of the figure, for diagnostics
+
 	public AngleIdentifier(Map<Segment, Segment> segments)
+	{
+		this(segments, "");
+	}
+
+	public AngleIdentifier(Map<Segment, Segment> segments, String description)
 	{
 		_segments = segments;
+		_description = description;
 	}
 
 	/*
@@ -25,15 +38,84 @@ public class AngleIdentifier
 	{
 		if (_angles != null) return _angles;
 
+		AngleIdentificationEvent event = new AngleIdentificationEvent();
+		event.begin();
+
 		_angles = new AngleEquivalenceClasses();
 
 		computeAngles();
 
+		event.end();
+		if (event.shouldCommit()) {
+			event.figure = _description;
+			event.points = TriangleIdentifier.countPoints(_segments.keySet());
+			event.segments = _segments.size();
+			event.angles = _angles.size();
+			event.classes = _angles.numClasses();
+			event.commit();
+		}
+
 		return _angles;
 	}
 
+	/*
+	 * Groups the segments by the vertices they end at and, at each vertex, by the direction
+	 * they leave it in (DirectionKey): segments overlaying as rays share a direction.
+	 * An angle is made from every two segments leaving a vertex in different directions,
+	 * so no pair of overlaying segments (measure 0) is ever tried, and the work is the sum
+	 * over the vertices of their squared degrees.
+	 *
+	 * All angles between the same two directions at a vertex are one equivalence class;
+	 * they are added to _angles together.
+	 */
 	private void computeAngles()
 	{
-		// TODO
+		for (Map<DirectionKey, List<Segment>> directions : raysByVertex().values()) {
+			List<List<Segment>> rays = new ArrayList<List<Segment>>(directions.values());
+
+			for (int i = 0; i < rays.size(); i++) {
+				for (int j = i + 1; j < rays.size(); j++) {
+					addAngles(rays.get(i), rays.get(j));
+				}
+			}
+		}
+	}
+
+	/*
+	 * @return for each endpoint of a segment, its segments by the direction they leave it in;
+	 *         vertices and directions in the order they are first met
+	 */
+	private Map<Point, Map<DirectionKey, List<Segment>>> raysByVertex()
+	{
+		Map<Point, Map<DirectionKey, List<Segment>>> vertices = new LinkedHashMap<Point, Map<DirectionKey, List<Segment>>>();
+
+		for (Segment segment : _segments.keySet()) {
+			if (segment.getPoint1().equals(segment.getPoint2())) continue;
+
+			for (Point vertex : new Point[] { segment.getPoint1(), segment.getPoint2() }) {
+				vertices.computeIfAbsent(vertex, key -> new LinkedHashMap<DirectionKey, List<Segment>>())
+				        .computeIfAbsent(segment.getDirectionKey(vertex), key -> new ArrayList<Segment>())
+				        .add(segment);
+			}
+		}
+
+		return vertices;
+	}
+
+	/*
+	 * Adds the angles between every ray of the first direction and every ray of the second.
+	 */
+	private void addAngles(List<Segment> rays1, List<Segment> rays2)
+	{
+		for (Segment ray1 : rays1) {
+			for (Segment ray2 : rays2) {
+				try {
+					_angles.add(new Angle(ray1, ray2));
+				}
+				catch (FactException fe) {
+					// Directions too close for a measure: no angle
+				}
+			}
+		}
 	}
 }
@@ -1,24 +1,30 @@
 package preprocessor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
-import java.util.SortedSet;
 
-import java.util.TreeSet;
 import java.util.stream.Stream;
 
 
 import geometry_objects.points.Point;
 import geometry_objects.points.PointDatabase;
 import input.components.exception.NotInDatabaseException;
+import preprocessor.PreprocessorMetrics.Stage;
 import preprocessor.delegates.ImplicitPointPreprocessor;
+import preprocessor.delegates.ImplicitPoints;
+import preprocessor.delegates.SegmentChains;
+import preprocessor.delegates.SegmentDatabase;
+import preprocessor.delegates.SegmentGrid;
+import preprocessor.delegates.SegmentSplitter;
+import utilities.jfr.PreprocessStageEvent;
 import geometry_objects.Segment;
+import geometry_objects.SegmentFactory;
 
 /**
  * Preprocesses explicit and implicit points along with segments to construct minimal and non-minimal segments.
@@ -36,6 +42,9 @@ public class Preprocessor
 	// Minimal ('Base') segments provided by the user
 	protected Set<Segment> _givenSegments;
 
+	// Interns the segments made here: one object per pair of endpoints
+	protected SegmentFactory _segmentFactory;
+
 	// The set of implicitly defined points caused by segments
 	// at implicit points.
 	protected Set<Point> _implicitPoints;
@@ -48,23 +57,51 @@ public class Preprocessor
 	// That is, minimal segments uniquely define the figure.
 	protected Set<Segment> _allMinimalSegments;
 
-	// A collection of non-basic segments
-	protected Set<Segment> _nonMinimalSegments;
+	// Collinear runs of minimal segments; every non-basic segment is a run of two or more
+	protected SegmentChains _segmentChains;
 
 	// A collection of all possible segments: maximal, minimal, and everything in between
 	// For lookup capability, we use a map; each <key, value> has the same segment object
-	// That is, key == value. 
+	// That is, key == value. Non-basic segments are not stored but resolved on the chains
+	// (see SegmentDatabase); the map is read-only.
 	protected Map<Segment, Segment> _segmentDatabase;
 	public Map<Segment, Segment> getAllSegments() { return _segmentDatabase; }
 
+	// Timings and sizes of the latest analysis
+	protected PreprocessorMetrics _metrics;
+	public PreprocessorMetrics getMetrics() { return _metrics; }
+
+	// Description of the figure, for diagnostics; empty if not given
+	protected String _description;
+
 	public Preprocessor(PointDatabase points, Set<Segment> segments) throws NotInDatabaseException
 	{
+		this(points, segments, "");
+	}
+
+	/**
+	 * @param description -- the description of the figure; reported with the preprocessing events
+	 */
+	public Preprocessor(PointDatabase points, Set<Segment> segments, String description) throws NotInDatabaseException
+	{
+		this(points, segments, description, true);
+	}
+
+	/**
+	 * @param analyze -- false to leave the results to the caller (see PreprocessorSnapshot)
+	 */
+	Preprocessor(PointDatabase points, Set<Segment> segments, String description, boolean analyze) throws NotInDatabaseException
+	{
+		_description = description;
 		_pointDatabase  = points;
 		_givenSegments = segments;
 
-		_segmentDatabase = new HashMap<Segment, Segment>();
+		_segmentFactory = new SegmentFactory();
+		_givenSegments.forEach((segment) -> _segmentFactory.intern(segment));
 
-		analyze();
+		_metrics = new PreprocessorMetrics();
+
+		if(analyze) analyze();
 	}
 
 	/**
@@ -73,33 +110,102 @@ public class Preprocessor
 	 */
 	public void analyze() throws NotInDatabaseException
 	{
+		_metrics = new PreprocessorMetrics();
+
 		//
 		// Implicit Points
 		//
+		long start = System.nanoTime();
+		PreprocessStageEvent event = beginStage();
 		_implicitPoints = ImplicitPointPreprocessor.compute(_pointDatabase, _givenSegments.stream().toList());
+		endStage(Stage.IMPLICIT_POINTS, start, event, _implicitPoints.size());
+
+		if(_implicitPoints instanceof ImplicitPoints) {
+			ImplicitPoints implicitPoints = (ImplicitPoints) _implicitPoints;
+			_metrics.recordIntersections(implicitPoints.getIntersectionTests(), implicitPoints.getCrossings(), implicitPoints.numIncidences());
+		}
 
 		//
 		// Implicit Segments attributed to implicit points
 		//
+		start = System.nanoTime();
+		event = beginStage();
 		_implicitSegments = computeImplicitBaseSegments(_implicitPoints);
+		endStage(Stage.IMPLICIT_BASE_SEGMENTS, start, event, _implicitSegments.size());
 
 		//
 		// Combine the given minimal segments and implicit segments into a true set of minimal segments
 		//     *givenSegments may not be minimal
 		//     * implicitSegmen
 		//
+		start = System.nanoTime();
+		event = beginStage();
 		_allMinimalSegments = identifyAllMinimalSegments(_implicitPoints, _givenSegments, _implicitSegments);
+		endStage(Stage.MINIMAL_SEGMENTS, start, event, _allMinimalSegments.size());
 
 		//
-		// Construct all segments inductively from the base segments
+		// Chain the base segments; all other segments are runs along these chains
 		//
-		_nonMinimalSegments = constructAllNonMinimalSegments(_allMinimalSegments);
+		start = System.nanoTime();
+		event = beginStage();
+		_segmentChains = new SegmentChains(_allMinimalSegments);
 
 		//
 		// Combine minimal and non-minimal into one package: our database
 		//
-		_allMinimalSegments.forEach((segment) -> _segmentDatabase.put(segment, segment));
-		_nonMinimalSegments.forEach((segment) -> _segmentDatabase.put(segment, segment));
+		_segmentDatabase = new SegmentDatabase(_allMinimalSegments, _segmentChains, _segmentFactory);
+		endStage(Stage.NON_MINIMAL_SEGMENTS, start, event, countNonMinimalSegments(_segmentChains));
+
+		_metrics.export();
+	}
+
+	private PreprocessStageEvent beginStage()
+	{
+		PreprocessStageEvent event = new PreprocessStageEvent();
+		event.begin();
+
+		return event;
+	}
+
+	/**
+	 * Records a finished stage in the metrics and, if enabled, as a flight recorder event.
+	 * @param stage -- the stage
+	 * @param start -- System.nanoTime() when the stage began
+	 * @param event -- the event begun with the stage
+	 * @param produced -- the number of points or segments the stage produced
+	 */
+	private void endStage(Stage stage, long start, PreprocessStageEvent event, long produced)
+	{
+		_metrics.recordStage(stage, System.nanoTime() - start, produced);
+
+		event.end();
+		if(event.shouldCommit()) {
+			event.figure = _description;
+			event.stage = stage.name();
+			event.points = _pointDatabase.size();
+			event.segments = _givenSegments.size();
+			event.produced = produced;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Counts the non-minimal segments from the chain lengths, without building them: a chain
+	 * of k points has (k - 1)(k - 2) / 2 runs of two or more minimal segments.
+	 * @param chains -- the chains of the minimal segments
+	 * @return the number of non-minimal segments
+	 */
+	protected long countNonMinimalSegments(SegmentChains chains)
+	{
+		long count = chains.getIrregularSegments().size();
+
+		for(Point[] chain: chains.getChains()) {
+			_metrics.recordChain(chain.length);
+
+			count += (long) (chain.length - 1) * (chain.length - 2) / 2;
+		}
+
+		return count;
 	}
 
 	/**
@@ -113,54 +219,30 @@ public class Preprocessor
 
 		Set<Segment> implicitSegment = new HashSet<>();
 
-		for(Segment segment: _givenSegments) {
-
-			Set<Point> pointSeg = new HashSet<>();
-			//gets all the impPoint between the segment and adds them to pointSeg
-			for(Point point: impPoints) {
+		List<Segment> segments = new ArrayList<>(_givenSegments);
 
-				if(segment.pointLiesBetweenEndpoints(point)) pointSeg.add(point);
-			}
-
-			if(!pointSeg.isEmpty()) {
-
-				pointSeg.add(segment.getPoint1());
-				pointSeg.add(segment.getPoint2());
+		//gets all the impPoint between each segment
+		Map<Segment, List<Point>> pointsOnSegment = new HashMap<>();
+		for(Map.Entry<Point, Set<Segment>> incidence: incidences(impPoints, segments).entrySet()) {
 
-				SortedSet<Point> sortedPoint = segment.collectOrderedPointsOnSegment(pointSeg);
-
-				implicitSegment.addAll(makeSegments(sortedPoint));
+			for(Segment segment: incidence.getValue()) {
+				pointsOnSegment.computeIfAbsent(segment, key -> new ArrayList<>()).add(incidence.getKey());
 			}
 		}
 
-		return implicitSegment;
-	}
-
-	/**
-	 * Generates segments between ordered points to form a set of n-1 segments.
-	 * @param points -- an ordred list of points
-	 * @return a set of n-1 segments between all points provided
-	 */
-	protected Set<Segment> makeSegments(SortedSet<Point> points)
-	{
-		if(points == null) throw new NullPointerException();
+		//cuts each segment at its points, in order along the segment
+		for(Segment segment: segments) {
 
-		// Handles edge case
-		if(points.size() <= 1) return new HashSet<Segment>();
+			List<Point> pointSeg = pointsOnSegment.get(segment);
 
-		Set<Segment> newSegments = new HashSet<>();
+			if(pointSeg != null) {
+				_metrics.recordSplit(pointSeg.size());
 
-		Point prev = null;
-		for(Point point: points) {
-
-			if(prev == null) prev = point;
-			else {
-				newSegments.add(new Segment(prev, point));
-				prev = point;
+				SegmentSplitter.split(segment, pointSeg, _segmentFactory, implicitSegment);
 			}
 		}
 
-		return newSegments;
+		return implicitSegment;
 	}
 
 	/**
@@ -180,110 +262,62 @@ public class Preprocessor
 
 		Set<Segment> minimal = new HashSet<Segment>(minimalImpSegments);
 
-		for(Segment seg: givenSegments) {
-			boolean isMinimalSegment = true;
-
-			Iterator<Point> points = impPoints.iterator();
+		List<Segment> segments = new ArrayList<>(givenSegments);
 
-			//identifies segments with new points in them, meaning their not minimal
-			while(isMinimalSegment && points.hasNext()) {
-				Point impPoint = (Point) points.next();
-
-				if(seg.pointLiesBetweenEndpoints(impPoint)) isMinimalSegment = false;
-			}
+		//identifies segments with new points in them, meaning their not minimal
+		Set<Segment> nonMinimal = new HashSet<>();
+		for(Set<Segment> segmentsThrough: incidences(impPoints, segments).values()) {
+			nonMinimal.addAll(segmentsThrough);
+		}
 
-			if(isMinimalSegment) minimal.add(seg);
+		for(Segment seg: segments) {
+			if(!nonMinimal.contains(seg)) minimal.add(seg);
 		}
 
 		return minimal;
 	}
 
 	/**
-	 * Constructs non-minimal segments from minimal segments.
-	 * @param minimalSegs
-	 * @return a set of non-minimal segments
+	 * Pairs each implicit point with the segments it lies in the middle of. Points found by
+	 * ImplicitPointPreprocessor over (at least) these segments already carry their incidences;
+	 * otherwise each point is tested against the segments near it.
+	 * @param impPoints -- implicit points
+	 * @param segments -- the segments the points may lie on
+	 * @return each point to the segments through it, in the order of @impPoints
 	 */
-	public Set<Segment> constructAllNonMinimalSegments(Set<Segment> minimalSegs)
+	protected Map<Point, Set<Segment>> incidences(Set<Point> impPoints, List<Segment> segments)
 	{
-		if(minimalSegs == null) throw new NullPointerException();
-
-		Set<Segment> nonMinimalSegs = new HashSet<Segment>();
-
-		constructAllNonMinimalSegments( minimalSegs.stream().toList(), nonMinimalSegs);
-
-		return nonMinimalSegs;
-	}
-
-	private void constructAllNonMinimalSegments(List<Segment> minimalSegs, Set<Segment> nonMinimalSegs)
-	{
-		if(minimalSegs.isEmpty()) return;
+		if(impPoints instanceof ImplicitPoints && ((ImplicitPoints) impPoints).covers(segments)) {
+			return ((ImplicitPoints) impPoints).getIncidences();
+		}
 
-		Queue<Segment> q = new LinkedList<>(minimalSegs);
-		Segment seg1 = q.remove();
+		SegmentGrid grid = new SegmentGrid(segments);
 
-		Set<Segment> segments = new HashSet<>(/*minimalSegs*/q);
+		Map<Point, Set<Segment>> incidences = new LinkedHashMap<>();
+		for(Point point: impPoints) {
 
-		for(Segment seg2: segments) {
-			Point vertex = seg1.sharedVertex(seg2);
-			Segment seg = combineToNewSegment(seg1, seg2);
+			Set<Segment> segmentsThrough = new LinkedHashSet<>();
+			for(Segment segment: grid.segmentsNear(point)) {
 
-			if(vertex != null && seg != null) {
-				nonMinimalSegs.add(seg);
-				q.add(seg);
+				if(segment.pointLiesBetweenEndpoints(point)) segmentsThrough.add(segment);
 			}
-			/*if(seg1.isCollinearWith(seg2) && vertex != null && !seg1.HasSubSegment(seg2) && !seg2.HasSubSegment(seg1)) {
-				// the order segments are added together in 
-				int order = seg1.getPoint1().compareTo(seg2.getPoint1());
-
-				if(order < 0) {
-					nonMinimalSegs.add(combineToNewSegment(seg1, seg2));
-					q.add(combineToNewSegment(seg1, seg2));
-				}
-
-				if(order > 0) {
-					nonMinimalSegs.add(combineToNewSegment(seg2, seg1));
-					q.add(combineToNewSegment(seg2, seg1));
-				}
-			}*/
+
+			incidences.put(point, segmentsThrough);
 		}
 
-		constructAllNonMinimalSegments(q.stream().toList(), nonMinimalSegs);
+		return incidences;
 	}
 
 	/**
-	 * Stitches together segments that are on the same line.
-	 * @param left segment
-	 * @param right segment
-	 * @return combined segments
+	 * Constructs non-minimal segments from minimal segments: every contiguous run of two or
+	 * more collinear minimal segments (see SegmentChains).
+	 * @param minimalSegs
+	 * @return a set of non-minimal segments
 	 */
-	private Segment combineToNewSegment(Segment left, Segment right)
+	public Set<Segment> constructAllNonMinimalSegments(Set<Segment> minimalSegs)
 	{
-		if(left.equals(right)) return left;
-
-		//if(left.isCollinearWith(right)) return new Segment(left.getPoint1(), right.getPoint2());
-
-		if(left.isCollinearWith(right) && !left.HasSubSegment(right) && !right.HasSubSegment(left)) {
-			// the order segments are added together in 
-			/*int order = left.getPoint1().compareTo(right.getPoint1());
-
-			if(order < 0) {
-				return new Segment(left.getPoint1(), right.getPoint2());
-			}
-
-			if(order > 0) {
-				return new Segment(right.getPoint1(), left.getPoint2());
-			}*/
-
-			SortedSet<Point> order = new TreeSet<>();
-			order.add(left.getPoint1());
-			order.add(left.getPoint2());
-			order.add(right.getPoint1());
-			order.add(right.getPoint2());
-			
-			return new Segment(order.first(), order.last());
-		
-		}
+		if(minimalSegs == null) throw new NullPointerException();
 
-		return null;
+		return new SegmentChains(minimalSegs).nonMinimalSegments();
 	}
-}
\ No newline at end of file
+}
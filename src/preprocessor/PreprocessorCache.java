@@ -0,0 +1,81 @@
+package preprocessor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import geometry_objects.Segment;
+import geometry_objects.points.PointDatabase;
+import input.components.exception.NotInDatabaseException;
+
+/**
+ * A directory of PreprocessorSnapshot files, one per figure, named by the key of the input.
+ * A figure seen before (in this or an earlier run) is loaded instead of analyzed.
+ *
+ * The cache only saves work: a snapshot that cannot be read is analyzed again (and replaced),
+ * and one that cannot be written is simply not there next time.
+ */
+public class PreprocessorCache
+{
+	private static final String EXTENSION = ".snapshot";
+
+	protected Path _directory;
+
+	/**
+	 * @param directory -- where snapshots are kept; made when the first one is written
+	 */
+	public PreprocessorCache(Path directory)
+	{
+		if(directory == null) throw new NullPointerException();
+
+		_directory = directory;
+	}
+
+	public Path getDirectory() { return _directory; }
+
+	/**
+	 * @param points -- the database of a figure, before preprocessing
+	 * @param segments -- the given segments of the figure
+	 * @param description -- the description of the figure
+	 * @return the Preprocessor of the figure: loaded from its snapshot if there is one,
+	 *         otherwise analyzed (and saved)
+	 * @throws NotInDatabaseException
+	 */
+	public Preprocessor preprocess(PointDatabase points, Set<Segment> segments, String description) throws NotInDatabaseException
+	{
+		PreprocessorSnapshot snapshot = new PreprocessorSnapshot(points, segments);
+		Path file = _directory.resolve(snapshot.getKey() + EXTENSION);
+
+		if(Files.isRegularFile(file)) {
+			try {
+				return snapshot.read(file, description);
+			}
+			catch(IOException e) {
+				// unreadable; analyze again and replace it
+			}
+		}
+
+		Preprocessor preprocessor = new Preprocessor(points, segments, description);
+
+		try {
+			Files.createDirectories(_directory);
+			snapshot.write(preprocessor, file);
+		}
+		catch(IOException e) {
+			// not saved; the figure is analyzed again next time
+		}
+
+		return preprocessor;
+	}
+
+	/**
+	 * @param points -- the database of a figure, before preprocessing
+	 * @param segments -- the given segments of the figure
+	 * @return true if the cache holds a snapshot for the figure
+	 */
+	public boolean contains(PointDatabase points, Set<Segment> segments)
+	{
+		return Files.isRegularFile(_directory.resolve(new PreprocessorSnapshot(points, segments).getKey() + EXTENSION));
+	}
+}
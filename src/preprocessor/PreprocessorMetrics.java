@@ -0,0 +1,159 @@
+package preprocessor;
+
+/**
+ * What one run of Preprocessor.analyze cost, stage by stage: wall time, how much each stage
+ * produced, the intersection tests behind the implicit points and the largest intermediate
+ * collections. Filled in by the Preprocessor as it runs; read it from getMetrics().
+ *
+ * When a run finishes, a copy of its metrics is published as the latest run, served as a
+ * platform MXBean under OBJECT_NAME (see PreprocessorMetricsPublisher).
+ */
+public class PreprocessorMetrics implements PreprocessorMetricsMXBean
+{
+	public static final String OBJECT_NAME = "preprocessor:type=PreprocessorMetrics";
+
+	/**
+	 * The stages of Preprocessor.analyze, in the order they run.
+	 */
+	public enum Stage
+	{
+		IMPLICIT_POINTS,
+		IMPLICIT_BASE_SEGMENTS,
+		MINIMAL_SEGMENTS,
+		NON_MINIMAL_SEGMENTS
+	}
+
+	// Indexed by Stage.ordinal()
+	protected long[] _nanos;
+	protected long[] _produced;
+
+	protected long _intersectionTests;
+	protected long _crossings;
+
+	// Sizes: (point, segment) incidences in all; the most points cutting one segment and
+	// the most points on one chain
+	protected int _incidences;
+	protected int _maxPointsOnSegment;
+	protected int _longestChain;
+
+	public PreprocessorMetrics()
+	{
+		_nanos = new long[Stage.values().length];
+		_produced = new long[Stage.values().length];
+	}
+
+	/**
+	 * @param that -- metrics to copy
+	 */
+	public PreprocessorMetrics(PreprocessorMetrics that)
+	{
+		_nanos = that._nanos.clone();
+		_produced = that._produced.clone();
+		_intersectionTests = that._intersectionTests;
+		_crossings = that._crossings;
+		_incidences = that._incidences;
+		_maxPointsOnSegment = that._maxPointsOnSegment;
+		_longestChain = that._longestChain;
+	}
+
+	/**
+	 * @param stage -- a stage that has finished
+	 * @param nanos -- its wall time
+	 * @param produced -- the number of points (IMPLICIT_POINTS) or segments it produced
+	 */
+	void recordStage(Stage stage, long nanos, long produced)
+	{
+		_nanos[stage.ordinal()] = nanos;
+		_produced[stage.ordinal()] = produced;
+	}
+
+	void recordIntersections(long tests, long crossings, int incidences)
+	{
+		_intersectionTests = tests;
+		_crossings = crossings;
+		_incidences = incidences;
+	}
+
+	void recordSplit(int points) { _maxPointsOnSegment = Math.max(_maxPointsOnSegment, points); }
+
+	void recordChain(int points) { _longestChain = Math.max(_longestChain, points); }
+
+	public long getNanos(Stage stage) { return _nanos[stage.ordinal()]; }
+	public long getProduced(Stage stage) { return _produced[stage.ordinal()]; }
+
+	@Override
+	public long getImplicitPointsNanos() { return getNanos(Stage.IMPLICIT_POINTS); }
+	@Override
+	public long getImplicitBaseSegmentsNanos() { return getNanos(Stage.IMPLICIT_BASE_SEGMENTS); }
+	@Override
+	public long getMinimalSegmentsNanos() { return getNanos(Stage.MINIMAL_SEGMENTS); }
+	@Override
+	public long getNonMinimalSegmentsNanos() { return getNanos(Stage.NON_MINIMAL_SEGMENTS); }
+
+	@Override
+	public long getTotalNanos()
+	{
+		long total = 0;
+		for(long nanos : _nanos) total += nanos;
+
+		return total;
+	}
+
+	@Override
+	public long getIntersectionTests() { return _intersectionTests; }
+	@Override
+	public long getCrossings() { return _crossings; }
+
+	/**
+	 * @return the fraction of intersection tests that found a crossing; 0 if there were none
+	 */
+	@Override
+	public double getHitRate() { return _intersectionTests == 0 ? 0 : (double) _crossings / _intersectionTests; }
+
+	@Override
+	public int getImplicitPoints() { return (int) getProduced(Stage.IMPLICIT_POINTS); }
+	@Override
+	public int getImplicitSegments() { return (int) getProduced(Stage.IMPLICIT_BASE_SEGMENTS); }
+	@Override
+	public int getMinimalSegments() { return (int) getProduced(Stage.MINIMAL_SEGMENTS); }
+
+	/**
+	 * @return the number of runs of two or more minimal segments along the chains, plus the
+	 *         non-minimal segments of groups that are not chains; counted, not built
+	 *         (see SegmentDatabase)
+	 */
+	@Override
+	public long getNonMinimalSegments() { return getProduced(Stage.NON_MINIMAL_SEGMENTS); }
+
+	@Override
+	public int getIncidences() { return _incidences; }
+	@Override
+	public int getMaxPointsOnSegment() { return _maxPointsOnSegment; }
+	@Override
+	public int getLongestChain() { return _longestChain; }
+
+	/**
+	 * Publishes a copy of these metrics, of a finished run, as the latest run served under
+	 * OBJECT_NAME; later runs do not change the copy.
+	 */
+	public void export()
+	{
+		PreprocessorMetricsPublisher.platform().publish(new PreprocessorMetrics(this));
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+
+		for(Stage stage : Stage.values()) {
+			sb.append(stage + ": " + getNanos(stage) / 1000 + " us, " + getProduced(stage) + " produced\n");
+		}
+
+		sb.append("intersection tests: " + _intersectionTests + ", crossings: " + _crossings + "\n");
+		sb.append("incidences: " + _incidences + ", max points on a segment: " + _maxPointsOnSegment +
+				  ", longest chain: " + _longestChain + "\n");
+
+		return sb.toString();
+	}
+}
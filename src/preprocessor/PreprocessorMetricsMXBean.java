@@ -0,0 +1,27 @@
+package preprocessor;
+
+/**
+ * The management interface of PreprocessorMetricsPublisher: the figures of the latest finished run of
+ * Preprocessor.analyze, as JMX attributes. Times are in nanoseconds.
+ */
+public interface PreprocessorMetricsMXBean
+{
+	long getImplicitPointsNanos();
+	long getImplicitBaseSegmentsNanos();
+	long getMinimalSegmentsNanos();
+	long getNonMinimalSegmentsNanos();
+	long getTotalNanos();
+
+	long getIntersectionTests();
+	long getCrossings();
+	double getHitRate();
+
+	int getImplicitPoints();
+	int getImplicitSegments();
+	int getMinimalSegments();
+	long getNonMinimalSegments();
+
+	int getIncidences();
+	int getMaxPointsOnSegment();
+	int getLongestChain();
+}
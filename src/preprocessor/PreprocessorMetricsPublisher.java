@@ -0,0 +1,104 @@
+package preprocessor;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The MXBean that serves the metrics of the latest finished run of Preprocessor.analyze.
+ *
+ * One publisher stays registered for as long as it is wanted; each run hands it a finished
+ * copy of its metrics (publish), which is never written again. The copy is swapped in through
+ * a volatile field, so a JMX thread sees either the previous run or the new one in full, never
+ * a run still being recorded, and Preprocessors running side by side do not unregister one
+ * another's bean.
+ */
+public class PreprocessorMetricsPublisher implements PreprocessorMetricsMXBean
+{
+	// The publisher of the platform MBean server; registered when first used
+	private static PreprocessorMetricsPublisher _platform;
+
+	protected volatile PreprocessorMetrics _latest;
+
+	public PreprocessorMetricsPublisher()
+	{
+		_latest = new PreprocessorMetrics();
+	}
+
+	/**
+	 * @return the publisher registered with the platform MBean server under
+	 *         PreprocessorMetrics.OBJECT_NAME. Monitoring is best effort: if the server refuses
+	 *         the bean, the publisher still works but is not served.
+	 */
+	public static synchronized PreprocessorMetricsPublisher platform()
+	{
+		if(_platform == null) {
+			_platform = new PreprocessorMetricsPublisher();
+
+			try {
+				_platform.register(ManagementFactory.getPlatformMBeanServer());
+			}
+			catch(JMException e) {
+				// not served; the metrics are still available from the Preprocessor
+			}
+		}
+
+		return _platform;
+	}
+
+	/**
+	 * @param server -- the server to serve this publisher from, under PreprocessorMetrics.OBJECT_NAME
+	 */
+	public void register(MBeanServer server) throws JMException
+	{
+		server.registerMBean(this, new ObjectName(PreprocessorMetrics.OBJECT_NAME));
+	}
+
+	/**
+	 * @param metrics -- the metrics of a finished run; not to be written after
+	 */
+	public void publish(PreprocessorMetrics metrics)
+	{
+		if(metrics == null) throw new NullPointerException();
+
+		_latest = metrics;
+	}
+
+	public PreprocessorMetrics getLatest() { return _latest; }
+
+	@Override
+	public long getImplicitPointsNanos() { return _latest.getImplicitPointsNanos(); }
+	@Override
+	public long getImplicitBaseSegmentsNanos() { return _latest.getImplicitBaseSegmentsNanos(); }
+	@Override
+	public long getMinimalSegmentsNanos() { return _latest.getMinimalSegmentsNanos(); }
+	@Override
+	public long getNonMinimalSegmentsNanos() { return _latest.getNonMinimalSegmentsNanos(); }
+	@Override
+	public long getTotalNanos() { return _latest.getTotalNanos(); }
+
+	@Override
+	public long getIntersectionTests() { return _latest.getIntersectionTests(); }
+	@Override
+	public long getCrossings() { return _latest.getCrossings(); }
+	@Override
+	public double getHitRate() { return _latest.getHitRate(); }
+
+	@Override
+	public int getImplicitPoints() { return _latest.getImplicitPoints(); }
+	@Override
+	public int getImplicitSegments() { return _latest.getImplicitSegments(); }
+	@Override
+	public int getMinimalSegments() { return _latest.getMinimalSegments(); }
+	@Override
+	public long getNonMinimalSegments() { return _latest.getNonMinimalSegments(); }
+
+	@Override
+	public int getIncidences() { return _latest.getIncidences(); }
+	@Override
+	public int getMaxPointsOnSegment() { return _latest.getMaxPointsOnSegment(); }
+	@Override
+	public int getLongestChain() { return _latest.getLongestChain(); }
+}
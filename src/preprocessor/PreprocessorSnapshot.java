@@ -0,0 +1,410 @@
+package preprocessor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import geometry_objects.Segment;
+import geometry_objects.points.Point;
+import geometry_objects.points.PointDatabase;
+import input.components.exception.NotInDatabaseException;
+import preprocessor.delegates.ImplicitPoints;
+import preprocessor.delegates.SegmentChains;
+import preprocessor.delegates.SegmentDatabase;
+
+/**
+ * The results of a Preprocessor in a compact binary file, so that a figure analyzed once
+ * need not be analyzed again (see PreprocessorCache).
+ *
+ * Point objects are numbered: first those the figure came with (the database points, then
+ * the endpoints of the given segments; each object once), then those the analysis made. The
+ * given segments are taken in the order they come in, which is part of the key: the analysis
+ * names the points it makes in the order it meets them, so the same figure given in another
+ * order may well name them differently. The file holds the names and coordinates of the latter; everything else is numbers: the
+ * database in order, the implicit points with the given segments through each, the implicit
+ * and minimal segments as pairs of points and the chains as runs of points.
+ *
+ * Loading maps the file and rebuilds the Preprocessor without analyze(): the database gets
+ * the same point objects, names and order (and resumes generated names where the analysis
+ * left off); segments are made through the Preprocessor's SegmentFactory in the same way.
+ *
+ * A snapshot belongs to the input it was made from; the key is a SHA-256 digest of that input.
+ * The file ends with a CRC-32 of everything before it, checked on loading.
+ */
+public class PreprocessorSnapshot
+{
+	private static final int MAGIC = 0x47465053;
+	private static final int VERSION = 3;
+
+	// The input
+	protected PointDatabase _points;
+	protected Set<Segment> _segments;
+
+	// The point objects the figure came with, numbered in order
+	protected List<Point> _inputPoints;
+	protected Map<Point, Integer> _inputIds;
+
+	// The given segments in iteration order; incidences refer to positions in this list
+	protected List<Segment> _givenSegments;
+
+	protected byte[] _key;
+
+	/**
+	 * @param points -- the database of a figure, before preprocessing
+	 * @param segments -- the given segments of the figure
+	 */
+	public PreprocessorSnapshot(PointDatabase points, Set<Segment> segments)
+	{
+		if(points == null || segments == null) throw new NullPointerException();
+
+		_points = points;
+		_segments = segments;
+		_inputPoints = new ArrayList<Point>();
+		_inputIds = new IdentityHashMap<Point, Integer>();
+		_givenSegments = new ArrayList<Segment>(segments);
+
+		MessageDigest digest = sha256();
+
+		try(DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+			out.writeInt(VERSION);
+			out.writeInt(points.getGeneratedCount());
+
+			out.writeInt(points.size());
+			for(Point point : points.getPoints()) out.writeInt(number(point));
+
+			out.writeInt(_givenSegments.size());
+			for(Segment segment : _givenSegments) {
+				out.writeInt(number(segment.getPoint1()));
+				out.writeInt(number(segment.getPoint2()));
+			}
+
+			for(Point point : _inputPoints) writePoint(out, point);
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		_key = digest.digest();
+	}
+
+	/**
+	 * @return the key of the input, in hexadecimal
+	 */
+	public String getKey() { return HexFormat.of().formatHex(_key); }
+
+	private int number(Point point)
+	{
+		Integer id = _inputIds.get(point);
+		if(id != null) return id;
+
+		_inputIds.put(point, _inputPoints.size());
+		_inputPoints.add(point);
+
+		return _inputPoints.size() - 1;
+	}
+
+	private static MessageDigest sha256()
+	{
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch(NoSuchAlgorithmException e) {
+			// every Java platform provides SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Saves the results of a Preprocessor made from this input. The file is written aside, to a
+	 * temporary file of its own, and moved into place, so a reader never sees part of it even
+	 * when several writers save the same figure at once.
+	 *
+	 * @param preprocessor -- a Preprocessor analyzed from the input of this snapshot
+	 * @param file -- where to save
+	 * @throws IOException
+	 */
+	public void write(Preprocessor preprocessor, Path file) throws IOException
+	{
+		Numbering numbering = new Numbering();
+
+		preprocessor._pointDatabase.getPoints().forEach(numbering::number);
+		preprocessor._implicitPoints.forEach(numbering::number);
+		numbering.numberEndpoints(preprocessor._implicitSegments);
+		numbering.numberEndpoints(preprocessor._allMinimalSegments);
+		for(Point[] chain : preprocessor._segmentChains.getChains()) {
+			for(Point point : chain) numbering.number(point);
+		}
+		numbering.numberEndpoints(preprocessor._segmentChains.getIrregularSegments());
+
+		Map<Segment, Integer> givenIds = new IdentityHashMap<Segment, Integer>();
+		for(int i = 0; i < _givenSegments.size(); i++) givenIds.put(_givenSegments.get(i), i);
+
+		Path directory = file.toAbsolutePath().getParent();
+		Path temporary = Files.createTempFile(directory, file.getFileName() + ".", ".tmp");
+
+		CRC32 crc = new CRC32();
+		try(DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)), crc))) {
+			writeResults(out, preprocessor, numbering, givenIds);
+
+			out.flush();
+			out.writeLong(crc.getValue());
+		}
+		catch(IOException e) {
+			Files.deleteIfExists(temporary);
+			throw e;
+		}
+
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private void writeResults(DataOutputStream out, Preprocessor preprocessor, Numbering numbering,
+			                  Map<Segment, Integer> givenIds) throws IOException
+	{
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.write(_key);
+
+		out.writeInt(_inputPoints.size());
+		out.writeInt(numbering._made.size());
+		for(Point point : numbering._made) writePoint(out, point);
+
+		out.writeInt(preprocessor._pointDatabase.getGeneratedCount());
+		out.writeInt(preprocessor._pointDatabase.size());
+		for(Point point : preprocessor._pointDatabase.getPoints()) out.writeInt(numbering.number(point));
+
+		// implicit points with the given segments through each
+		out.writeInt(preprocessor._implicitPoints.size());
+		for(Point point : preprocessor._implicitPoints) {
+			Set<Segment> through = preprocessor._implicitPoints instanceof ImplicitPoints ?
+					((ImplicitPoints) preprocessor._implicitPoints).getSegments(point) : Set.of();
+
+			out.writeInt(numbering.number(point));
+			out.writeInt(through.size());
+			for(Segment segment : through) {
+				Integer id = givenIds.get(segment);
+				if(id == null) throw new IOException("implicit point on a segment that was not given");
+
+				out.writeInt(id);
+			}
+		}
+
+		writeSegments(out, preprocessor._implicitSegments, numbering);
+		writeSegments(out, preprocessor._allMinimalSegments, numbering);
+
+		out.writeInt(preprocessor._segmentChains.getChains().size());
+		for(Point[] chain : preprocessor._segmentChains.getChains()) {
+			out.writeInt(chain.length);
+			for(Point point : chain) out.writeInt(numbering.number(point));
+		}
+
+		writeSegments(out, preprocessor._segmentChains.getIrregularSegments(), numbering);
+	}
+
+	private static void writePoint(DataOutputStream out, Point point) throws IOException
+	{
+		byte[] name = point.getName().getBytes(StandardCharsets.UTF_8);
+
+		out.writeInt(name.length);
+		out.write(name);
+		out.writeDouble(point.getX());
+		out.writeDouble(point.getY());
+	}
+
+	private static void writeSegments(DataOutputStream out, Set<Segment> segments, Numbering numbering) throws IOException
+	{
+		out.writeInt(segments.size());
+		for(Segment segment : segments) {
+			out.writeInt(numbering.number(segment.getPoint1()));
+			out.writeInt(numbering.number(segment.getPoint2()));
+		}
+	}
+
+	/**
+	 * Numbers point objects after those of the input, in the order first seen.
+	 */
+	private class Numbering
+	{
+		protected Map<Point, Integer> _ids = new IdentityHashMap<Point, Integer>(_inputIds);
+		protected List<Point> _made = new ArrayList<Point>();
+
+		int number(Point point)
+		{
+			Integer id = _ids.get(point);
+			if(id != null) return id;
+
+			_ids.put(point, _inputPoints.size() + _made.size());
+			_made.add(point);
+
+			return _inputPoints.size() + _made.size() - 1;
+		}
+
+		void numberEndpoints(Set<Segment> segments)
+		{
+			for(Segment segment : segments) {
+				number(segment.getPoint1());
+				number(segment.getPoint2());
+			}
+		}
+	}
+
+	/**
+	 * Loads a snapshot of this input by mapping the file into memory. The point database of
+	 * the input is changed only once the whole file has been read and checked.
+	 *
+	 * @param file -- a snapshot written by write() for this input
+	 * @param description -- the description of the figure
+	 * @return a Preprocessor with the saved results; analyze() is not run
+	 * @throws IOException if the file cannot be read, is damaged or belongs to another input
+	 * @throws NotInDatabaseException
+	 */
+	public Preprocessor read(Path file, String description) throws IOException, NotInDatabaseException
+	{
+		ByteBuffer buffer;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		int length = buffer.limit() - Long.BYTES;
+		if(length < 0) throw new IOException("damaged snapshot " + file);
+
+		CRC32 crc = new CRC32();
+		crc.update(buffer.duplicate().limit(length));
+		if(crc.getValue() != buffer.getLong(length)) throw new IOException("damaged snapshot " + file);
+
+		try {
+			return restore(buffer, description);
+		}
+		catch(BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+			throw new IOException("damaged snapshot " + file, e);
+		}
+	}
+
+	private Preprocessor restore(ByteBuffer in, String description) throws IOException, NotInDatabaseException
+	{
+		if(in.getInt() != MAGIC || in.getInt() != VERSION) throw new IOException("not a snapshot");
+
+		byte[] key = new byte[_key.length];
+		in.get(key);
+		if(!Arrays.equals(key, _key) || in.getInt() != _inputPoints.size()) throw new IOException("snapshot of another figure");
+
+		// every point object, numbered as written
+		Point[] points = Arrays.copyOf(_inputPoints.toArray(new Point[0]), _inputPoints.size() + in.getInt());
+		for(int id = _inputPoints.size(); id < points.length; id++) points[id] = readPoint(in);
+
+		int generated = in.getInt();
+		List<Point> database = new ArrayList<Point>();
+		for(int n = in.getInt(); n > 0; n--) database.add(points[in.getInt()]);
+
+		ImplicitPoints implicitPoints = new ImplicitPoints(_givenSegments);
+		for(int n = in.getInt(); n > 0; n--) {
+			Point point = points[in.getInt()];
+
+			List<Segment> through = new ArrayList<Segment>();
+			for(int k = in.getInt(); k > 0; k--) through.add(_givenSegments.get(in.getInt()));
+
+			implicitPoints.put(point, through);
+		}
+
+		int[] implicitSegments = readPairs(in);
+		int[] minimalSegments = readPairs(in);
+
+		List<Point[]> chains = new ArrayList<Point[]>();
+		for(int n = in.getInt(); n > 0; n--) {
+			Point[] chain = new Point[in.getInt()];
+			for(int rank = 0; rank < chain.length; rank++) chain[rank] = points[in.getInt()];
+
+			chains.add(chain);
+		}
+
+		int[] irregularSegments = readPairs(in);
+		for(int id : implicitSegments) checkId(id, points);
+		for(int id : minimalSegments) checkId(id, points);
+		for(int id : irregularSegments) checkId(id, points);
+
+		//
+		// The whole file is read; bring back the results
+		//
+		Preprocessor preprocessor = new Preprocessor(_points, _segments, description, false);
+
+		_points.restore(database, generated);
+
+		preprocessor._implicitPoints = implicitPoints;
+		preprocessor._implicitSegments = makeSegments(implicitSegments, points, preprocessor);
+		preprocessor._allMinimalSegments = makeSegments(minimalSegments, points, preprocessor);
+
+		Set<Segment> irregular = new HashSet<Segment>();
+		for(int i = 0; i < irregularSegments.length; i += 2) {
+			irregular.add(new Segment(points[irregularSegments[i]], points[irregularSegments[i + 1]]));
+		}
+
+		preprocessor._segmentChains = new SegmentChains(chains, irregular);
+		preprocessor._segmentDatabase = new SegmentDatabase(preprocessor._allMinimalSegments, preprocessor._segmentChains, preprocessor._segmentFactory);
+
+		return preprocessor;
+	}
+
+	private static Point readPoint(ByteBuffer in)
+	{
+		byte[] name = new byte[in.getInt()];
+		in.get(name);
+
+		String text = new String(name, StandardCharsets.UTF_8);
+		double x = in.getDouble();
+		double y = in.getDouble();
+
+		// Point tells unnamed points by the identity of its ANONYMOUS name
+		return text.equals(Point.ANONYMOUS) ? new Point(x, y) : new Point(text, x, y);
+	}
+
+	/**
+	 * @return the pairs of point numbers of a list of segments, flattened
+	 */
+	private static int[] readPairs(ByteBuffer in)
+	{
+		int[] pairs = new int[2 * in.getInt()];
+		for(int i = 0; i < pairs.length; i++) pairs[i] = in.getInt();
+
+		return pairs;
+	}
+
+	private static void checkId(int id, Point[] points) throws IOException
+	{
+		if(id < 0 || id >= points.length) throw new IOException("point " + id + " out of range");
+	}
+
+	/**
+	 * @return the segments between pairs of points, made (or found) by the preprocessor's factory
+	 */
+	private static Set<Segment> makeSegments(int[] pairs, Point[] points, Preprocessor preprocessor)
+	{
+		Set<Segment> segments = new HashSet<Segment>();
+		for(int i = 0; i < pairs.length; i += 2) {
+			segments.add(preprocessor._segmentFactory.get(points[pairs[i]], points[pairs[i + 1]]));
+		}
+
+		return segments;
+	}
+}
@@ -0,0 +1,62 @@
+package preprocessor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import geometry_objects.points.Point;
+
+/**
+ * How many triangles a figure has, in total and at each point, as counted by
+ * TriangleIdentifier.countTriangles without building them.
+ */
+public class TriangleCount
+{
+	protected long _total;
+
+	// _histogram[i] is the number of triangles with a vertex at _points[i]
+	protected Point[] _points;
+	protected int[] _histogram;
+
+	// The index of each point
+	protected Map<Point, Integer> _indices;
+
+	public TriangleCount(long total, Point[] points, int[] histogram)
+	{
+		if(points.length != histogram.length) throw new IllegalArgumentException("one count per point");
+
+		_total = total;
+		_points = points;
+		_histogram = histogram;
+
+		_indices = new HashMap<Point, Integer>();
+		for(int i = 0; i < points.length; i++) _indices.put(points[i], i);
+	}
+
+	public long getTotal() { return _total; }
+
+	/**
+	 * @return the number of points; the endpoints of the segments counted over
+	 */
+	public int numPoints() { return _points.length; }
+
+	public Point getPoint(int index) { return _points[index]; }
+
+	/**
+	 * @return the number of triangles at each point, by index (see getPoint)
+	 */
+	public int[] getHistogram() { return _histogram; }
+
+	/**
+	 * @param pt -- a point
+	 * @return the number of triangles with a vertex at @pt
+	 */
+	public int getCount(Point pt)
+	{
+		Integer index = _indices.get(pt);
+
+		return index == null ? 0 : _histogram[index];
+	}
+
+	@Override
+	public String toString() { return _total + " triangles on " + _points.length + " points"; }
+}
@@ -1,42 +1,194 @@
 package preprocessor;
 
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import exceptions.FactException;
 import geometry_objects.Segment;
 import geometry_objects.Triangle;
+import geometry_objects.points.Point;
+import preprocessor.delegates.ParallelTriangleFinder;
+import preprocessor.delegates.TriangleGraph;
+import preprocessor.delegates.TriangleSet;
+import preprocessor.delegates.TriangleSpliterator;
+import utilities.jfr.TriangleIdentificationEvent;
 
 public class TriangleIdentifier
 {
-	protected Set<Triangle>         _triangles;
+	protected TriangleSet           _triangles;
 	protected Map<Segment, Segment> _segments; // The set of ALL segments for this figure.
 
+	protected String _description; // Description of the figure, for diagnostics
+
+	protected ForkJoinPool _pool; // Runs the search in parallel; null for a sequential search
+
 	public TriangleIdentifier(Map<Segment, Segment> segments)
+	{
+		this(segments, "");
+	}
+
+	public TriangleIdentifier(Map<Segment, Segment> segments, String description)
+	{
+		this(segments, description, null);
+	}
+
+	/*
+	 * @param pool -- the pool to search in; null to search sequentially.
+	 *                Either way the triangles are the same, in the same order.
+	 */
+	public TriangleIdentifier(Map<Segment, Segment> segments, String description, ForkJoinPool pool)
 	{
 		_segments = segments;
+		_description = description;
+		_pool = pool;
 	}
 
 	/*
 	 * Compute the figure triangles on the fly when requested;
-	 * memoize results for subsequent calls.
+	 * memoize results for subsequent calls. The set iterates in a fixed order:
+	 * by lowest vertex, in the order of TriangleGraph.
+	 *
+	 * The set holds the triangles as the ids of their vertices (see TriangleSet);
+	 * Triangle objects are made as it is iterated.
 	 */
 	public Set<Triangle> getTriangles()
 	{
 		if (_triangles != null) return _triangles;
 
-		_triangles = new HashSet<Triangle>();
+		TriangleIdentificationEvent event = new TriangleIdentificationEvent();
+		event.begin();
 
 		computeTriangles();
 
+		event.end();
+		if (event.shouldCommit()) {
+			event.figure = _description;
+			event.parallel = _pool != null;
+			event.points = countPoints(_segments.keySet());
+			event.segments = _segments.size();
+			event.triangles = _triangles.size();
+			event.commit();
+		}
+
 		return _triangles;
 	}
 
+	/*
+	 * Brings the triangles up to date after an edit of the figure: the segment database given to
+	 * the constructor has lost @removed and gained @added (including the minimal and non-minimal
+	 * segments the edit split, joined or extended along their chains). Only the triangles on
+	 * the changed segments are looked at: those of a removed segment are dropped and those
+	 * closed by an added one (its endpoints' common neighbors) are added, so an edit costs
+	 * about the degrees of its endpoints rather than a new search.
+	 *
+	 * After an update, triangles iterate in the order they were found, the added ones last.
+	 * Before getTriangles() has been called there is nothing to update.
+	 *
+	 * @param added -- segments now in the database, not in it before
+	 * @param removed -- segments in the database before, not in it now
+	 */
+	public void update(Collection<Segment> added, Collection<Segment> removed)
+	{
+		if (_triangles == null) return;
+
+		TriangleGraph graph = _triangles.getGraph();
+
+		for (Segment segment : removed) {
+			int a = graph.getId(segment.getPoint1());
+			int b = graph.getId(segment.getPoint2());
+
+			if (a < 0 || b < 0 || a == b || !graph.hasSegment(a, b)) continue;
+
+			for (int c : graph.commonNeighbors(a, b)) _triangles.remove(a, b, c);
+
+			graph.removeSegment(segment);
+		}
+
+		for (Segment segment : added) {
+			if (!graph.addSegment(segment)) continue;
+
+			int a = graph.getId(segment.getPoint1());
+			int b = graph.getId(segment.getPoint2());
+
+			for (int c : graph.commonNeighbors(a, b)) {
+				if (!graph.areCollinear(a, b, c)) _triangles.add(a, b, c);
+			}
+		}
+	}
+
+	/*
+	 * Counts the triangles of the figure, in total and at each point, by the same search as
+	 * getTriangles() but without building any Triangle (or its list of sides): only primitive
+	 * counters are kept, so figures with more triangles than would fit in memory can be counted.
+	 *
+	 * The count agrees with getTriangles().size().
+	 */
+	public TriangleCount countTriangles()
+	{
+		TriangleGraph graph = new TriangleGraph(_segments.keySet());
+
+		Point[] points = new Point[graph.numPoints()];
+		for (int id = 0; id < points.length; id++) points[id] = graph.getPoint(id);
+
+		int[] histogram = new int[points.length];
+		long total = graph.countTriangles(histogram);
+
+		return new TriangleCount(total, points, histogram);
+	}
+
+	/*
+	 * The triangles of the figure, found as they are consumed and in the order of getTriangles().
+	 * Nothing is memoized: a stream that stops early (anyMatch, findFirst, limit) only does the
+	 * work up to where it stops, and triangles counted or filtered away are not kept.
+	 * The stream may be made parallel; it splits by lowest vertex (see TriangleSpliterator).
+	 * Once getTriangles() has been called, its set is streamed instead.
+	 */
+	public Stream<Triangle> stream()
+	{
+		if (_triangles != null) return _triangles.stream();
+
+		TriangleGraph graph = new TriangleGraph(_segments.keySet());
+
+		return StreamSupport.stream(new TriangleSpliterator<Triangle>(graph, graph::getTriangle), false);
+	}
+
+	/*
+	 * @return the number of distinct endpoints of the segments
+	 */
+	static int countPoints(Set<Segment> segments)
+	{
+		Set<Point> points = new HashSet<Point>();
+
+		for (Segment segment : segments) {
+			points.add(segment.getPoint1());
+			points.add(segment.getPoint2());
+		}
+
+		return points.size();
+	}
+
+	/*
+	 * Walks the segments as a graph on their endpoints (see TriangleGraph): each triangle is
+	 * found once from its lowest-numbered vertex, its closing side confirmed by lookup and
+	 * collinear triples dropped by an orientation test, so no triple of segments that fails
+	 * to be a triangle is ever built. With a pool, the vertices are divided among its
+	 * threads (see ParallelTriangleFinder).
+	 */
 	private void computeTriangles()
 	{
-		// TODO
+		TriangleGraph graph = new TriangleGraph(_segments.keySet());
+
+		_triangles = new TriangleSet(graph);
+
+		if (_pool == null) {
+			graph.forEachTriangle((u, v, w) -> _triangles.add(u, v, w));
+		}
+		else {
+			for (long triangle : ParallelTriangleFinder.find(graph, _pool)) _triangles.add(triangle);
+		}
 	}
 }
@@ -1,12 +1,14 @@
 package preprocessor.delegates;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import geometry_objects.Segment;
+import geometry_objects.delegates.intersections.SegmentIntersectionDelegate;
 import geometry_objects.points.Point;
 import geometry_objects.points.PointDatabase;
+import preprocessor.delegates.ParallelIntersector.Crossings;
 import input.components.exception.NotInDatabaseException;
+import utilities.jfr.IntersectionBatchEvent;
 
 /**
  * Gets all implicit points from a set of points and segments
@@ -16,36 +18,229 @@ import input.components.exception.NotInDatabaseException;
 
 public class ImplicitPointPreprocessor
 {
+	/**
+	 * How the pairs of segments to intersect are chosen.
+	 */
+	public enum Strategy
+	{
+		// Intersect every ordered pair of segments
+		ALL_PAIRS,
+
+		// Intersect only the pairs reported by a sweep line (SweepLineIntersector)
+		SWEEP_LINE,
+
+		// Intersect only the pairs whose bounding boxes overlap (SegmentGrid)
+		GRID
+	}
+
 	/**
 	 * It is possible that some of the defined segments intersect
 	 * and points that are not named; we need to capture those
 	 * points and name them.
-	 * 
+	 *
+	 * @param givenPoints: points of the geometric shapes
+	 * @param givenSegments: segments of the geometric shapes
+	 * @throws NotInDatabaseException
+	 */
+	public static ImplicitPoints compute(PointDatabase givenPoints, List<Segment> givenSegments) throws NotInDatabaseException
+	{
+		return compute(givenPoints, givenSegments, Strategy.SWEEP_LINE);
+	}
+
+	/**
+	 * Computes the implicit points with the given strategy. Every strategy puts the same
+	 * points into the database in the same order, so generated names do not depend on it.
+	 *
+	 * @param givenPoints: points of the geometric shapes
+	 * @param givenSegments: segments of the geometric shapes
+	 * @param strategy: how pairs of segments are chosen
+	 * @throws NotInDatabaseException
+	 */
+	public static ImplicitPoints compute(PointDatabase givenPoints, List<Segment> givenSegments, Strategy strategy) throws NotInDatabaseException
+	{
+		if(givenPoints == null || givenSegments == null || strategy == null) throw new NullPointerException();
+
+		ImplicitPoints implicitPoints = new ImplicitPoints(givenSegments);
+
+		switch(strategy) {
+		case ALL_PAIRS:
+			IntersectionBatchEvent event = new IntersectionBatchEvent();
+			event.begin();
+
+			double[] buffer = new double[2];
+			long tests = (long) givenSegments.size() * givenSegments.size();
+
+			for(Segment _segment1 : givenSegments) {
+				for(Segment _segment2 : givenSegments) {
+					addIntersection(givenPoints, _segment1, _segment2, implicitPoints, buffer);
+				}
+			}
+
+			implicitPoints.addIntersectionTests(tests);
+			commitBatch(event, strategy, givenSegments.size(), tests, implicitPoints.getCrossings());
+			break;
+
+		case SWEEP_LINE:
+		case GRID:
+			addIntersections(givenPoints, givenSegments, candidatePairs(givenSegments, strategy), strategy, implicitPoints);
+			break;
+		}
+
+		return implicitPoints;
+	}
+
+	/**
+	 * Computes the implicit points with the given strategy, running the intersection tests
+	 * in a ForkJoinPool. Crossings are gathered first and put into the database afterwards,
+	 * in the order a sequential run finds them; the database, and the generated names, are
+	 * the same as those of compute(givenPoints, givenSegments, strategy).
+	 *
 	 * @param givenPoints: points of the geometric shapes
 	 * @param givenSegments: segments of the geometric shapes
-	 * @throws NotInDatabaseException 
-	 */
-	public static Set<Point> compute(PointDatabase givenPoints, List<Segment> givenSegments) throws NotInDatabaseException
-	{
-		if(givenPoints == null || givenSegments == null) throw new NullPointerException();
-		
-		Set<Point> implicitPoints = new LinkedHashSet<Point>();
-
-        for(Segment _segment1 : givenSegments) {
-        	for(Segment _segment2 : givenSegments) {
-        		
-        		Point implicitPoint = _segment1.segmentIntersection(_segment2);
-        		
-        		if(implicitPoint != null && _segment1.pointLiesBetweenEndpoints(implicitPoint) &&
-        				_segment2.pointLiesBetweenEndpoints(implicitPoint)) {
-
-        			
-        			givenPoints.put(implicitPoint);
-        			implicitPoints.add(givenPoints.getPoint(implicitPoint));
-        		}
-        	}
-        }
-        
+	 * @param strategy: how pairs of segments are chosen
+	 * @param pool: the pool running the intersection tests
+	 * @throws NotInDatabaseException
+	 */
+	public static ImplicitPoints compute(PointDatabase givenPoints, List<Segment> givenSegments, Strategy strategy, ForkJoinPool pool) throws NotInDatabaseException
+	{
+		if(givenPoints == null || givenSegments == null || strategy == null || pool == null) throw new NullPointerException();
+
+		SegmentPairs pairs = strategy == Strategy.ALL_PAIRS ? null : orderedPairs(candidatePairs(givenSegments, strategy));
+
+		Crossings crossings = pairs == null ?
+				ParallelIntersector.allPairs(givenSegments, pool) :
+				ParallelIntersector.pairs(givenSegments, pairs, pool);
+
+		ImplicitPoints implicitPoints = new ImplicitPoints(givenSegments);
+		implicitPoints.addIntersectionTests(pairs == null ? (long) givenSegments.size() * givenSegments.size() : pairs.size());
+
+		for(int i = 0; i < crossings.size(); i++) {
+			addImplicitPoint(givenPoints, crossings.getX(i), crossings.getY(i),
+				             givenSegments.get(crossings.getFirst(i)), givenSegments.get(crossings.getSecond(i)), implicitPoints);
+		}
+
 		return implicitPoints;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @param givenSegments: segments of the geometric shapes
+	 * @param strategy: SWEEP_LINE or GRID
+	 * @return unordered pairs (i < j) of indices into givenSegments that may cross
+	 */
+	private static SegmentPairs candidatePairs(List<Segment> givenSegments, Strategy strategy)
+	{
+		if(strategy == Strategy.SWEEP_LINE) return SweepLineIntersector.findCrossingPairs(givenSegments);
+
+		return new SegmentGrid(givenSegments).candidatePairs();
+	}
+
+	/**
+	 * Intersects the candidate pairs of segments in the order the all-pairs loop would.
+	 *
+	 * @param givenPoints: the point database
+	 * @param givenSegments: segments of the geometric shapes
+	 * @param candidates: unordered pairs (i < j) of indices into givenSegments
+	 * @param strategy: how the candidates were chosen
+	 * @param implicitPoints: collects the database entries of crossings
+	 * @throws NotInDatabaseException
+	 */
+	private static void addIntersections(PointDatabase givenPoints, List<Segment> givenSegments, SegmentPairs candidates,
+			                             Strategy strategy, ImplicitPoints implicitPoints) throws NotInDatabaseException
+	{
+		IntersectionBatchEvent event = new IntersectionBatchEvent();
+		event.begin();
+
+		SegmentPairs pairs = orderedPairs(candidates);
+		double[] buffer = new double[2];
+		long crossings = implicitPoints.getCrossings();
+
+		for(int i = 0; i < pairs.size(); i++) {
+			addIntersection(givenPoints, givenSegments.get(SegmentPairs.first(pairs.get(i))),
+					                     givenSegments.get(SegmentPairs.second(pairs.get(i))), implicitPoints, buffer);
+		}
+
+		implicitPoints.addIntersectionTests(pairs.size());
+		commitBatch(event, strategy, givenSegments.size(), pairs.size(), implicitPoints.getCrossings() - crossings);
+	}
+
+	/**
+	 * Commits a finished batch of intersection tests if the event is enabled.
+	 */
+	private static void commitBatch(IntersectionBatchEvent event, Strategy strategy, int segments, long tests, long crossings)
+	{
+		event.end();
+		if(!event.shouldCommit()) return;
+
+		event.strategy = strategy.name();
+		event.parallel = false;
+		event.segments = segments;
+		event.tests = tests;
+		event.crossings = crossings;
+		event.commit();
+	}
+
+	/**
+	 * Intersects one (ordered) pair of segments; a crossing in the middle of both segments
+	 * is put into the database and collected as an implicit point. No Point is created
+	 * unless the segments actually cross.
+	 *
+	 * @param givenPoints: the point database
+	 * @param _segment1: a segment
+	 * @param _segment2: a segment
+	 * @param implicitPoints: collects the database entries of crossings
+	 * @param buffer: scratch space of 2 doubles for the intersection kernel
+	 * @throws NotInDatabaseException
+	 */
+	private static void addIntersection(PointDatabase givenPoints, Segment _segment1, Segment _segment2,
+			                            ImplicitPoints implicitPoints, double[] buffer) throws NotInDatabaseException
+	{
+		if(!SegmentIntersectionDelegate.findIntersection(_segment1, _segment2, buffer)) return;
+
+		addImplicitPoint(givenPoints, buffer[0], buffer[1], _segment1, _segment2, implicitPoints);
+	}
+
+	/**
+	 * Puts a crossing into the database and collects its database entry along with the
+	 * segments crossing there.
+	 *
+	 * @param givenPoints: the point database
+	 * @param x: x coordinate of the crossing
+	 * @param y: y coordinate of the crossing
+	 * @param _segment1: a segment through the crossing
+	 * @param _segment2: the other segment through the crossing
+	 * @param implicitPoints: collects the database entries of crossings
+	 * @throws NotInDatabaseException
+	 */
+	private static void addImplicitPoint(PointDatabase givenPoints, double x, double y, Segment _segment1, Segment _segment2,
+			                             ImplicitPoints implicitPoints) throws NotInDatabaseException
+	{
+		Point implicitPoint = new Point(x, y);
+
+		givenPoints.put(implicitPoint);
+		implicitPoints.add(givenPoints.getPoint(implicitPoint), _segment1, _segment2);
+	}
+
+	/**
+	 * The all-pairs loop visits (i, j) and later (j, i); the database renames a generated
+	 * point each time it is put again, so candidates are replayed in exactly that order.
+	 *
+	 * @param candidates: unordered pairs (i < j)
+	 * @return both orderings of each pair sorted by first index, then second
+	 */
+	private static SegmentPairs orderedPairs(SegmentPairs candidates)
+	{
+		SegmentPairs ordered = new SegmentPairs(2 * candidates.size());
+
+		for(int i = 0; i < candidates.size(); i++) {
+			int first = SegmentPairs.first(candidates.get(i));
+			int second = SegmentPairs.second(candidates.get(i));
+
+			ordered.add(first, second);
+			ordered.add(second, first);
+		}
+
+		ordered.sortDistinct();
+
+		return ordered;
+	}
+}
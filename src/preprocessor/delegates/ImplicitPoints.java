@@ -0,0 +1,123 @@
+package preprocessor.delegates;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import geometry_objects.Segment;
+import geometry_objects.points.Point;
+
+/**
+ * The implicit points of a figure, in the order they were found, together with the given
+ * segments each one lies on (strictly between the endpoints).
+ *
+ * Every such segment crosses another at the point, so the incidences are collected as the
+ * crossings are found; no point needs to be tested against the segments afterwards.
+ *
+ * Only actual crossings are recorded. A segment that merely passes within the between()
+ * tolerance of a point found on two other segments (three lines nearly, but not exactly,
+ * concurrent) is not attached to it; Segment.pointLiesBetweenEndpoints would accept it.
+ */
+public class ImplicitPoints extends AbstractSet<Point>
+{
+	// The segments that were intersected
+	protected Set<Segment> _segments;
+
+	// Each point to the segments crossing at it
+	protected Map<Point, Set<Segment>> _incidences;
+	protected int _numIncidences;
+
+	// Pairs of segments intersected, and how many of those crossed
+	protected long _intersectionTests;
+	protected long _crossings;
+
+	/**
+	 * @param segments -- the segments whose crossings are collected
+	 */
+	public ImplicitPoints(Collection<Segment> segments)
+	{
+		_segments = new HashSet<Segment>(segments);
+		_incidences = new LinkedHashMap<Point, Set<Segment>>();
+	}
+
+	/**
+	 * @param segments -- segments
+	 * @return true if every one of @segments was intersected, so its incidences are complete
+	 */
+	public boolean covers(Collection<Segment> segments) { return _segments.containsAll(segments); }
+
+	/**
+	 * Records a crossing. A point already present keeps its first object and gains the segments.
+	 *
+	 * @param pt -- the crossing
+	 * @param segment1 -- a segment through @pt
+	 * @param segment2 -- the other segment through @pt
+	 */
+	public void add(Point pt, Segment segment1, Segment segment2)
+	{
+		Set<Segment> segments = _incidences.computeIfAbsent(pt, key -> new LinkedHashSet<Segment>());
+
+		if(segments.add(segment1)) _numIncidences++;
+		if(segments.add(segment2)) _numIncidences++;
+
+		_crossings++;
+	}
+
+	/**
+	 * Records a point with all the segments through it at once, as saved from another run
+	 * (see PreprocessorSnapshot); no crossing is counted.
+	 *
+	 * @param pt -- an implicit point
+	 * @param segments -- the segments through @pt
+	 */
+	public void put(Point pt, Collection<Segment> segments)
+	{
+		Set<Segment> through = _incidences.computeIfAbsent(pt, key -> new LinkedHashSet<Segment>());
+
+		for(Segment segment : segments) {
+			if(through.add(segment)) _numIncidences++;
+		}
+	}
+
+	/**
+	 * @param tests -- the number of (ordered) pairs of segments intersected
+	 */
+	public void addIntersectionTests(long tests) { _intersectionTests += tests; }
+
+	public long getIntersectionTests() { return _intersectionTests; }
+
+	/**
+	 * @return the number of intersection tests that found a crossing (repeats included)
+	 */
+	public long getCrossings() { return _crossings; }
+
+	/**
+	 * @return the number of (point, segment) incidences
+	 */
+	public int numIncidences() { return _numIncidences; }
+
+	/**
+	 * @param pt -- an implicit point
+	 * @return the segments @pt lies on; empty if @pt is not an implicit point
+	 */
+	public Set<Segment> getSegments(Point pt) { return _incidences.getOrDefault(pt, Set.of()); }
+
+	/**
+	 * @return each implicit point with the segments it lies on
+	 */
+	public Map<Point, Set<Segment>> getIncidences() { return _incidences; }
+
+	@Override
+	public boolean contains(Object obj) { return _incidences.containsKey(obj); }
+
+	@Override
+	public Iterator<Point> iterator() { return _incidences.keySet().iterator(); }
+
+	@Override
+	public int size() { return _incidences.size(); }
+}
@@ -0,0 +1,93 @@
+package preprocessor.delegates;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import geometry_objects.Segment;
+import geometry_objects.points.Point;
+import utilities.math.analytic_geometry.LineKey;
+
+/**
+ * Groups a list of segments by the (infinite) line each lies on: the segments and the points
+ * of every line are a hash lookup on its LineKey away, rather than a scan of pairwise
+ * collinearity tests.
+ */
+public class LineIndex
+{
+	protected List<Segment> _segments;
+
+	// Each line to the indices of its segments, in list order
+	protected Map<LineKey, List<Integer>> _lines;
+
+	// Each line to the endpoints of its segments
+	protected Map<LineKey, Set<Point>> _points;
+
+	/**
+	 * @param segments -- the segments to index; results refer to positions in this list.
+	 *                    Segments without length lie on no line and are left out.
+	 */
+	public LineIndex(List<Segment> segments)
+	{
+		if(segments == null) throw new NullPointerException();
+
+		_segments = segments;
+		_lines = new LinkedHashMap<LineKey, List<Integer>>();
+		_points = new LinkedHashMap<LineKey, Set<Point>>();
+
+		for(int i = 0; i < segments.size(); i++) {
+			Segment segment = segments.get(i);
+
+			LineKey line = segment.getLineKey();
+			if(line == null) continue;
+
+			_lines.computeIfAbsent(line, key -> new ArrayList<Integer>()).add(i);
+
+			Set<Point> points = _points.computeIfAbsent(line, key -> new LinkedHashSet<Point>());
+			points.add(segment.getPoint1());
+			points.add(segment.getPoint2());
+		}
+	}
+
+	/**
+	 * @return the distinct lines of the segments, in order of first appearance
+	 */
+	public Set<LineKey> getLines() { return _lines.keySet(); }
+
+	/**
+	 * @param line -- a line
+	 * @return the positions of the segments on @line; empty if there are none
+	 */
+	public List<Integer> getIndices(LineKey line) { return _lines.getOrDefault(line, List.of()); }
+
+	/**
+	 * @param line -- a line
+	 * @return the segments on @line, in list order
+	 */
+	public List<Segment> getSegments(LineKey line)
+	{
+		List<Segment> segments = new ArrayList<Segment>();
+
+		for(int index : getIndices(line)) segments.add(_segments.get(index));
+
+		return segments;
+	}
+
+	/**
+	 * @param line -- a line
+	 * @return the endpoints of the segments on @line; empty if there are none
+	 */
+	public Set<Point> getPoints(LineKey line) { return _points.getOrDefault(line, Set.of()); }
+
+	/**
+	 * @param segment -- a segment
+	 * @return the indexed segments collinear with @segment (including itself, if indexed)
+	 */
+	public List<Segment> collinearWith(Segment segment)
+	{
+		return getSegments(segment.getLineKey());
+	}
+}
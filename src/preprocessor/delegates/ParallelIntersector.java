@@ -0,0 +1,201 @@
+package preprocessor.delegates;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import geometry_objects.Segment;
+import geometry_objects.delegates.intersections.SegmentIntersectionDelegate;
+import utilities.jfr.IntersectionBatchEvent;
+
+/**
+ * The narrow phase of implicit point discovery split across a ForkJoinPool.
+ *
+ * A range of ordered segment pairs is halved until it is small enough for a single task;
+ * each task intersects its pairs into a buffer of its own. Buffers are joined left to right,
+ * so crossings come back in exactly the order a sequential loop over the pairs finds them.
+ * That matters: the point database names generated points in the order they are put.
+ */
+public class ParallelIntersector extends RecursiveTask<ParallelIntersector.Crossings>
+{
+	private static final long serialVersionUID = 1L;
+
+	// Pairs intersected by one task without splitting further
+	private static final long SEQUENTIAL_THRESHOLD = 2048;
+
+	protected List<Segment> _segments;
+
+	// Ordered pairs of indices into _segments; null stands for every ordered pair
+	protected SegmentPairs _pairs;
+
+	// Range [_low, _high) of pairs handled by this task
+	protected long _low;
+	protected long _high;
+
+	/**
+	 * @param segments -- the segments of a figure
+	 * @param pool -- the pool to run in
+	 * @return the crossings of every ordered pair (i, j) of @segments, in row-major order
+	 */
+	public static Crossings allPairs(List<Segment> segments, ForkJoinPool pool)
+	{
+		if(segments == null || pool == null) throw new NullPointerException();
+
+		long n = segments.size();
+
+		return pool.invoke(new ParallelIntersector(segments, null, 0, n * n));
+	}
+
+	/**
+	 * @param segments -- the segments of a figure
+	 * @param pairs -- ordered pairs of indices into @segments
+	 * @param pool -- the pool to run in
+	 * @return the crossings of the given pairs, in the order of @pairs
+	 */
+	public static Crossings pairs(List<Segment> segments, SegmentPairs pairs, ForkJoinPool pool)
+	{
+		if(segments == null || pairs == null || pool == null) throw new NullPointerException();
+
+		return pool.invoke(new ParallelIntersector(segments, pairs, 0, pairs.size()));
+	}
+
+	protected ParallelIntersector(List<Segment> segments, SegmentPairs pairs, long low, long high)
+	{
+		_segments = segments;
+		_pairs = pairs;
+		_low = low;
+		_high = high;
+	}
+
+	@Override
+	protected Crossings compute()
+	{
+		if(_high - _low <= SEQUENTIAL_THRESHOLD) return intersectRange();
+
+		long middle = (_low + _high) >>> 1;
+
+		ParallelIntersector left = new ParallelIntersector(_segments, _pairs, _low, middle);
+		ParallelIntersector right = new ParallelIntersector(_segments, _pairs, middle, _high);
+
+		left.fork();
+		Crossings rightCrossings = right.compute();
+		Crossings leftCrossings = left.join();
+
+		leftCrossings.addAll(rightCrossings);
+
+		return leftCrossings;
+	}
+
+	private Crossings intersectRange()
+	{
+		IntersectionBatchEvent event = new IntersectionBatchEvent();
+		event.begin();
+
+		Crossings crossings = new Crossings();
+		double[] buffer = new double[2];
+
+		for(long k = _low; k < _high; k++) {
+			int first = first(k);
+			int second = second(k);
+
+			if(SegmentIntersectionDelegate.findIntersection(_segments.get(first), _segments.get(second), buffer)) {
+				crossings.add(buffer[0], buffer[1], first, second);
+			}
+		}
+
+		event.end();
+		if(event.shouldCommit()) {
+			event.strategy = _pairs == null ? "ALL_PAIRS" : "CANDIDATES";
+			event.parallel = true;
+			event.segments = _segments.size();
+			event.tests = _high - _low;
+			event.crossings = crossings.size();
+			event.commit();
+		}
+
+		return crossings;
+	}
+
+	private int first(long k)
+	{
+		if(_pairs == null) return (int) (k / _segments.size());
+
+		return SegmentPairs.first(_pairs.get((int) k));
+	}
+
+	private int second(long k)
+	{
+		if(_pairs == null) return (int) (k % _segments.size());
+
+		return SegmentPairs.second(_pairs.get((int) k));
+	}
+
+	/**
+	 * Coordinates of crossings in the order they were found, with the pair of segments
+	 * crossing at each.
+	 */
+	public static class Crossings
+	{
+		// x0, y0, x1, y1, ...
+		protected double[] _coordinates;
+
+		// The segment indices of each crossing, packed as in SegmentPairs
+		protected long[] _pairs;
+		protected int _size;
+
+		public Crossings()
+		{
+			_coordinates = new double[16];
+			_pairs = new long[8];
+			_size = 0;
+		}
+
+		public int size() { return _size; }
+		public boolean isEmpty() { return _size == 0; }
+
+		public double getX(int index) { return _coordinates[2 * index]; }
+		public double getY(int index) { return _coordinates[2 * index + 1]; }
+
+		public int getFirst(int index) { return SegmentPairs.first(_pairs[index]); }
+		public int getSecond(int index) { return SegmentPairs.second(_pairs[index]); }
+
+		/**
+		 * @param x -- x coordinate of the crossing
+		 * @param y -- y coordinate of the crossing
+		 * @param first -- index of one crossing segment
+		 * @param second -- index of the other crossing segment
+		 */
+		public void add(double x, double y, int first, int second)
+		{
+			ensureCapacity(_size + 1);
+
+			_coordinates[2 * _size] = x;
+			_coordinates[2 * _size + 1] = y;
+			_pairs[_size] = SegmentPairs.pack(first, second);
+			_size++;
+		}
+
+		/**
+		 * @param other -- crossings to append after these
+		 */
+		public void addAll(Crossings other)
+		{
+			ensureCapacity(_size + other._size);
+
+			System.arraycopy(other._coordinates, 0, _coordinates, 2 * _size, 2 * other._size);
+			System.arraycopy(other._pairs, 0, _pairs, _size, other._size);
+			_size += other._size;
+		}
+
+		private void ensureCapacity(int capacity)
+		{
+			if(capacity <= _pairs.length) return;
+
+			int length = Math.max(2 * _pairs.length, capacity);
+
+			_coordinates = Arrays.copyOf(_coordinates, 2 * length);
+			_pairs = Arrays.copyOf(_pairs, length);
+		}
+	}
+}
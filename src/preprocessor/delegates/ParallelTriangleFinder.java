@@ -0,0 +1,92 @@
+package preprocessor.delegates;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The walk of a TriangleGraph split across a ForkJoinPool.
+ *
+ * Every triangle is found from its lowest-numbered vertex, and no two vertices share any work,
+ * so the vertices are simply divided into ranges. A range is halved (at the middle of its
+ * estimated work, not of its vertices: a few vertices usually carry most of it) until it is
+ * small enough for a single task; each task packs its triangles (as by TriangleSet.pack) into
+ * a long[] buffer of its own, so there is no object per triangle. Buffers are joined left to
+ * right, so the results come back in exactly the order TriangleGraph.forEachTriangle visits them.
+ */
+public class ParallelTriangleFinder extends RecursiveTask<long[]>
+{
+	private static final long serialVersionUID = 1L;
+
+	// Work (see TriangleGraph.cost) done by one task without splitting further
+	private static final long SEQUENTIAL_THRESHOLD = 1 << 14;
+
+	protected TriangleGraph _graph;
+
+	// _work[u] is the work of the vertices before u
+	protected long[] _work;
+
+	// Range [_low, _high) of vertices handled by this task
+	protected int _low;
+	protected int _high;
+
+	// The triangles found by a sequential task, the first _size of _buffer
+	private long[] _buffer;
+	private int _size;
+
+	/**
+	 * @param graph -- the graph to walk
+	 * @param pool -- the pool to run in
+	 * @return every triangle packed as by TriangleSet.pack, in the order of TriangleGraph.forEachTriangle
+	 */
+	public static long[] find(TriangleGraph graph, ForkJoinPool pool)
+	{
+		if(graph == null || pool == null) throw new NullPointerException();
+
+		return pool.invoke(new ParallelTriangleFinder(graph, graph.cumulativeCost(), 0, graph.numPoints()));
+	}
+
+	protected ParallelTriangleFinder(TriangleGraph graph, long[] work, int low, int high)
+	{
+		_graph = graph;
+		_work = work;
+		_low = low;
+		_high = high;
+	}
+
+	@Override
+	protected long[] compute()
+	{
+		if(_high - _low <= 1 || _work[_high] - _work[_low] <= SEQUENTIAL_THRESHOLD) return findRange();
+
+		int middle = TriangleGraph.split(_work, _low, _high);
+
+		ParallelTriangleFinder left = new ParallelTriangleFinder(_graph, _work, _low, middle);
+		ParallelTriangleFinder right = new ParallelTriangleFinder(_graph, _work, middle, _high);
+
+		left.fork();
+		long[] rightResults = right.compute();
+		long[] leftResults = left.join();
+
+		long[] results = Arrays.copyOf(leftResults, leftResults.length + rightResults.length);
+		System.arraycopy(rightResults, 0, results, leftResults.length, rightResults.length);
+
+		return results;
+	}
+
+	private long[] findRange()
+	{
+		_buffer = new long[16];
+		_size = 0;
+
+		for(int u = _low; u < _high; u++) {
+			_graph.forEachTriangle(u, (a, b, c) -> {
+				if(_size == _buffer.length) _buffer = Arrays.copyOf(_buffer, 2 * _buffer.length);
+
+				_buffer[_size++] = TriangleSet.pack(a, b, c);
+			});
+		}
+
+		return Arrays.copyOf(_buffer, _size);
+	}
+}
@@ -0,0 +1,275 @@
+package preprocessor.delegates;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import geometry_objects.Segment;
+import geometry_objects.points.Point;
+import utilities.math.analytic_geometry.LineKey;
+
+/**
+ * Collinear runs of minimal segments.
+ *
+ * A minimal segment continues another when the two share a vertex, lie on the same line (see
+ * LineIndex) and lie on opposite sides of the vertex: exactly when the two combine into a
+ * longer segment. Following these links groups the minimal segments into chains, each ordered
+ * by position along its line (lexicographically, as Point.compareTo orders points on a line).
+ * Every non-minimal segment is then a contiguous run of two or more links of a chain.
+ *
+ * Collinear minimal segments may overlap (given segments are not split at explicit points), so
+ * a segment can have several continuations at a vertex. Such a group is not a single chain;
+ * its non-minimal segments are found by walking every path through it instead.
+ */
+public class SegmentChains
+{
+	// Minimal segments with their endpoints in order along their line: _low[e] < _high[e]
+	protected List<Segment> _edges;
+	protected List<Point> _low;
+	protected List<Point> _high;
+
+	// The minimal segments continuing each minimal segment past its high endpoint
+	protected List<List<Integer>> _successors;
+
+	// The points of each chain in order along its line; consecutive points form a minimal segment
+	protected List<Point[]> _chains;
+
+	// The chains through each point with the rank of the point on each, packed (chain, rank);
+	// in order of chain
+	protected Map<Point, SegmentPairs> _memberships;
+
+	// Non-minimal segments from groups of overlapping collinear segments (which form no chain)
+	protected Set<Segment> _irregular;
+
+	public List<Point[]> getChains() { return _chains; }
+	public Set<Segment> getIrregularSegments() { return _irregular; }
+
+	/**
+	 * @param minimalSegments -- the minimal segments of a figure
+	 */
+	public SegmentChains(Set<Segment> minimalSegments)
+	{
+		if(minimalSegments == null) throw new NullPointerException();
+
+		_edges = new ArrayList<Segment>();
+		_low = new ArrayList<Point>();
+		_high = new ArrayList<Point>();
+
+		for(Segment segment : minimalSegments) {
+			// A segment without length continues nothing
+			if(segment.getPoint1().equals(segment.getPoint2())) continue;
+
+			int order = segment.getPoint1().compareTo(segment.getPoint2());
+
+			_edges.add(segment);
+			_low.add(order < 0 ? segment.getPoint1() : segment.getPoint2());
+			_high.add(order < 0 ? segment.getPoint2() : segment.getPoint1());
+		}
+
+		_chains = new ArrayList<Point[]>();
+		_irregular = new HashSet<Segment>();
+
+		linkEdges();
+		buildChains();
+		indexChains();
+	}
+
+	/**
+	 * Chains built before (see PreprocessorSnapshot); only the index is rebuilt. The links
+	 * between minimal segments are not kept.
+	 *
+	 * @param chains -- the points of each chain in order along its line
+	 * @param irregular -- the non-minimal segments of groups that are not chains
+	 */
+	public SegmentChains(List<Point[]> chains, Set<Segment> irregular)
+	{
+		if(chains == null || irregular == null) throw new NullPointerException();
+
+		_chains = chains;
+		_irregular = irregular;
+
+		indexChains();
+	}
+
+	/**
+	 * Each minimal segment is linked to the minimal segments on its line starting at its high endpoint.
+	 */
+	private void linkEdges()
+	{
+		_successors = new ArrayList<List<Integer>>();
+		for(int e = 0; e < _edges.size(); e++) _successors.add(new ArrayList<Integer>());
+
+		LineIndex lines = new LineIndex(_edges);
+
+		for(LineKey line : lines.getLines()) {
+			Map<Point, List<Integer>> startingAt = new HashMap<Point, List<Integer>>();
+			for(int e : lines.getIndices(line)) {
+				startingAt.computeIfAbsent(_low.get(e), key -> new ArrayList<Integer>()).add(e);
+			}
+
+			for(int e : lines.getIndices(line)) {
+				_successors.get(e).addAll(startingAt.getOrDefault(_high.get(e), List.of()));
+			}
+		}
+	}
+
+	/**
+	 * Groups linked minimal segments; a group in which no segment has more than one successor
+	 * or predecessor is a chain.
+	 */
+	private void buildChains()
+	{
+		int n = _edges.size();
+
+		int[] predecessors = new int[n];
+		int[] group = new int[n];
+		for(int e = 0; e < n; e++) group[e] = e;
+
+		for(int e = 0; e < n; e++) {
+			for(int f : _successors.get(e)) {
+				predecessors[f]++;
+				union(group, e, f);
+			}
+		}
+
+		Map<Integer, List<Integer>> groups = new LinkedHashMap<Integer, List<Integer>>();
+		for(int e = 0; e < n; e++) {
+			groups.computeIfAbsent(find(group, e), key -> new ArrayList<Integer>()).add(e);
+		}
+
+		for(List<Integer> members : groups.values()) {
+			boolean simple = true;
+			for(int e : members) {
+				if(_successors.get(e).size() > 1 || predecessors[e] > 1) simple = false;
+			}
+
+			if(simple) addChain(members, predecessors);
+			else addPaths(members);
+		}
+	}
+
+	/**
+	 * @param members -- the segments of a simple group; one of them has no predecessor
+	 */
+	private void addChain(List<Integer> members, int[] predecessors)
+	{
+		int e = members.get(0);
+		for(int member : members) {
+			if(predecessors[member] == 0) e = member;
+		}
+
+		Point[] chain = new Point[members.size() + 1];
+		chain[0] = _low.get(e);
+
+		for(int rank = 1; rank < chain.length; rank++) {
+			chain[rank] = _high.get(e);
+
+			if(!_successors.get(e).isEmpty()) e = _successors.get(e).get(0);
+		}
+
+		_chains.add(chain);
+	}
+
+	/**
+	 * Walks every path of two or more linked segments starting in the given group.
+	 * @param members -- the segments of a group that is not a chain
+	 */
+	private void addPaths(List<Integer> members)
+	{
+		for(int first : members) {
+			List<Integer> frontier = new ArrayList<Integer>(_successors.get(first));
+
+			while(!frontier.isEmpty()) {
+				int last = frontier.remove(frontier.size() - 1);
+
+				_irregular.add(new Segment(_low.get(first), _high.get(last)));
+
+				frontier.addAll(_successors.get(last));
+			}
+		}
+	}
+
+	private void indexChains()
+	{
+		_memberships = new HashMap<Point, SegmentPairs>();
+
+		for(int chain = 0; chain < _chains.size(); chain++) {
+			Point[] points = _chains.get(chain);
+
+			for(int rank = 0; rank < points.length; rank++) {
+				_memberships.computeIfAbsent(points[rank], key -> new SegmentPairs(2)).add(chain, rank);
+			}
+		}
+	}
+
+	/**
+	 * Any two points of a chain are the endpoints of a minimal (adjacent ranks) or non-minimal
+	 * segment. Takes time linear in the number of chains through the two points.
+	 *
+	 * @param p -- a point
+	 * @param q -- a point
+	 * @return the lowest numbered chain through both points; -1 if there is none
+	 */
+	public int commonChain(Point p, Point q)
+	{
+		if(p == null || q == null || p.equals(q)) return -1;
+
+		SegmentPairs pChains = _memberships.get(p);
+		SegmentPairs qChains = _memberships.get(q);
+		if(pChains == null || qChains == null) return -1;
+
+		int i = 0;
+		int j = 0;
+		while(i < pChains.size() && j < qChains.size()) {
+			int pChain = SegmentPairs.first(pChains.get(i));
+			int qChain = SegmentPairs.first(qChains.get(j));
+
+			if(pChain == qChain) return pChain;
+
+			if(pChain < qChain) i++;
+			else j++;
+		}
+
+		return -1;
+	}
+
+	private static int find(int[] group, int e)
+	{
+		while(group[e] != e) {
+			group[e] = group[group[e]];
+			e = group[e];
+		}
+
+		return e;
+	}
+
+	private static void union(int[] group, int e, int f)
+	{
+		group[find(group, e)] = find(group, f);
+	}
+
+	/**
+	 * Every contiguous run of two or more minimal segments of each chain, in O(number of
+	 * segments produced), together with those of the groups that are not chains.
+	 *
+	 * @return the non-minimal segments; endpoints in order along their line
+	 */
+	public Set<Segment> nonMinimalSegments()
+	{
+		Set<Segment> nonMinimal = new HashSet<Segment>(_irregular);
+
+		for(Point[] chain : _chains) {
+			for(int i = 0; i < chain.length; i++) {
+				for(int j = i + 2; j < chain.length; j++) {
+					nonMinimal.add(new Segment(chain[i], chain[j]));
+				}
+			}
+		}
+
+		return nonMinimal;
+	}
+}
@@ -0,0 +1,193 @@
+package preprocessor.delegates;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import geometry_objects.Segment;
+import geometry_objects.SegmentFactory;
+import geometry_objects.points.Point;
+
+/**
+ * A read-only view of every segment of a figure: minimal, maximal and everything in between.
+ * Each <key, value> is the same segment (key equals value).
+ *
+ * Only the minimal segments are stored. A line split into k minimal segments has k(k - 1) / 2
+ * segments in all; those are answered from the collinear chains instead: two points of a chain
+ * are the endpoints of a segment, so lookups resolve both endpoints on the chain index. Segment
+ * objects for non-minimal segments are made when first looked up or iterated, through the
+ * SegmentFactory of the figure, so every lookup of a segment returns the same object.
+ */
+public class SegmentDatabase extends AbstractMap<Segment, Segment>
+{
+	protected Map<Segment, Segment> _minimal;
+	protected SegmentChains _chains;
+	protected SegmentFactory _factory;
+
+	// Counted on first request; -1 until then
+	protected int _size;
+
+	/**
+	 * @param minimalSegments -- the minimal segments of a figure
+	 * @param chains -- the collinear chains of those minimal segments
+	 * @param factory -- makes the other segments (the factory the minimal segments came from)
+	 */
+	public SegmentDatabase(Set<Segment> minimalSegments, SegmentChains chains, SegmentFactory factory)
+	{
+		if(minimalSegments == null || chains == null || factory == null) throw new NullPointerException();
+
+		_minimal = new HashMap<Segment, Segment>();
+		minimalSegments.forEach((segment) -> _minimal.put(segment, segment));
+
+		_chains = chains;
+		_factory = factory;
+		_size = -1;
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return get(key) != null;
+	}
+
+	@Override
+	public Segment get(Object key)
+	{
+		if(!(key instanceof Segment)) return null;
+
+		Segment segment = (Segment) key;
+
+		if(_minimal.containsKey(segment)) return _minimal.get(segment);
+
+		if(_chains.getIrregularSegments().contains(segment) ||
+		   _chains.commonChain(segment.getPoint1(), segment.getPoint2()) >= 0) return ordered(segment.getPoint1(), segment.getPoint2());
+
+		return null;
+	}
+
+	/**
+	 * @return THE segment between the two points; made with its endpoints in order along its line
+	 */
+	private Segment ordered(Point p, Point q)
+	{
+		return p.compareTo(q) < 0 ? _factory.get(p, q) : _factory.get(q, p);
+	}
+
+	@Override
+	public int size()
+	{
+		if(_size < 0) {
+			int size = 0;
+			for(Iterator<Segment> it = new SegmentIterator(); it.hasNext(); it.next()) size++;
+
+			_size = size;
+		}
+
+		return _size;
+	}
+
+	@Override
+	public Set<Map.Entry<Segment, Segment>> entrySet()
+	{
+		return new AbstractSet<Map.Entry<Segment, Segment>>()
+		{
+			@Override
+			public Iterator<Map.Entry<Segment, Segment>> iterator()
+			{
+				SegmentIterator segments = new SegmentIterator();
+
+				return new Iterator<Map.Entry<Segment, Segment>>()
+				{
+					@Override
+					public boolean hasNext() { return segments.hasNext(); }
+
+					@Override
+					public Map.Entry<Segment, Segment> next()
+					{
+						Segment segment = segments.next();
+
+						return new AbstractMap.SimpleImmutableEntry<Segment, Segment>(segment, segment);
+					}
+				};
+			}
+
+			@Override
+			public int size() { return SegmentDatabase.this.size(); }
+		};
+	}
+
+	/**
+	 * Minimal segments first, then those of groups that are not chains, then the runs of two
+	 * or more minimal segments of each chain. A segment reachable more than one way (several
+	 * chains may span the same two points) is produced only once: by the lowest numbered chain
+	 * through both its endpoints, unless it is stored outright.
+	 */
+	protected class SegmentIterator implements Iterator<Segment>
+	{
+		private Iterator<Segment> _stored = _minimal.keySet().iterator();
+		private Iterator<Segment> _irregular = _chains.getIrregularSegments().iterator();
+
+		// Position in the chains: chain, then the ranks of the two endpoints
+		private int _chain = 0;
+		private int _i = 0;
+		private int _j = 1;
+
+		private Segment _next = advance();
+
+		@Override
+		public boolean hasNext() { return _next != null; }
+
+		@Override
+		public Segment next()
+		{
+			if(_next == null) throw new NoSuchElementException();
+
+			Segment segment = _next;
+			_next = advance();
+
+			return segment;
+		}
+
+		private Segment advance()
+		{
+			if(_stored.hasNext()) return _stored.next();
+
+			while(_irregular.hasNext()) {
+				Segment segment = _irregular.next();
+
+				if(!_minimal.containsKey(segment)) return segment;
+			}
+
+			while(_chain < _chains.getChains().size()) {
+				Point[] chain = _chains.getChains().get(_chain);
+
+				_j++;
+				if(_j >= chain.length) {
+					_i++;
+					_j = _i + 2;
+				}
+				if(_j >= chain.length) {
+					_chain++;
+					_i = 0;
+					_j = 1;
+					continue;
+				}
+
+				if(_chains.commonChain(chain[_i], chain[_j]) != _chain) continue;
+
+				Segment segment = _factory.get(chain[_i], chain[_j]);
+
+				if(_minimal.containsKey(segment)) continue;
+				if(_chains.getIrregularSegments().contains(segment)) continue;
+
+				return segment;
+			}
+
+			return null;
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package preprocessor.delegates;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import geometry_objects.Segment;
+import geometry_objects.points.Point;
+import utilities.math.MathUtilities;
+
+/**
+ * A uniform grid (spatial hash) over the bounding boxes of a list of segments; the broad
+ * phase of segment-segment and point-segment tests.
+ *
+ * Each segment is bucketed into every cell its bounding box (grown by epsilon) covers, so
+ * only segments sharing a cell are ever compared. Results are candidates only: the precise
+ * tests stay with the segment and intersection delegates.
+ */
+public class SegmentGrid
+{
+	// Keeps the number of (segment, cell) entries linear in the number of segments
+	private static final int MAX_CELLS_PER_SEGMENT = 8;
+
+	// Columns and rows are numbered from 0 up to (not including) this, so two fit in a long key
+	private static final long MAX_INDEX = Integer.MAX_VALUE;
+
+	protected List<Segment> _segments;
+
+	// Bounding box of each segment, grown by epsilon
+	protected double[] _minX;
+	protected double[] _minY;
+	protected double[] _maxX;
+	protected double[] _maxY;
+
+	// Bounding box of all the segments
+	protected double _originX;
+	protected double _originY;
+	protected double _extentX;
+	protected double _extentY;
+	protected double _cellSize;
+
+	// Packed cell coordinates to the indices of the segments covering that cell
+	protected Map<Long, int[]> _cells;
+
+	public double getCellSize() { return _cellSize; }
+
+	/**
+	 * @param segments -- the segments to index; results refer to positions in this list
+	 */
+	public SegmentGrid(List<Segment> segments)
+	{
+		if(segments == null) throw new NullPointerException();
+
+		_segments = segments;
+
+		int n = segments.size();
+		_minX = new double[n];
+		_minY = new double[n];
+		_maxX = new double[n];
+		_maxY = new double[n];
+
+		_originX = Double.POSITIVE_INFINITY;
+		_originY = Double.POSITIVE_INFINITY;
+		_extentX = Double.NEGATIVE_INFINITY;
+		_extentY = Double.NEGATIVE_INFINITY;
+
+		for(int i = 0; i < n; i++) {
+			Point p1 = segments.get(i).getPoint1();
+			Point p2 = segments.get(i).getPoint2();
+
+			_minX[i] = Math.min(p1.getX(), p2.getX()) - MathUtilities.EPSILON;
+			_minY[i] = Math.min(p1.getY(), p2.getY()) - MathUtilities.EPSILON;
+			_maxX[i] = Math.max(p1.getX(), p2.getX()) + MathUtilities.EPSILON;
+			_maxY[i] = Math.max(p1.getY(), p2.getY()) + MathUtilities.EPSILON;
+
+			_originX = Math.min(_originX, _minX[i]);
+			_originY = Math.min(_originY, _minY[i]);
+			_extentX = Math.max(_extentX, _maxX[i]);
+			_extentY = Math.max(_extentY, _maxY[i]);
+		}
+
+		_cellSize = chooseCellSize();
+
+		buildCells();
+	}
+
+	/**
+	 * The cell size starts at the median extent of the segments, so that a typical segment
+	 * covers about one cell, and is doubled until long segments no longer cover too many and
+	 * the column and row of every point of the bounding box fit under MAX_INDEX (a few short
+	 * segments far apart would otherwise need indices no key can hold).
+	 */
+	private double chooseCellSize()
+	{
+		int n = _segments.size();
+		if(n == 0) return 1;
+
+		double[] extents = new double[n];
+		for(int i = 0; i < n; i++) {
+			extents[i] = Math.max(_maxX[i] - _minX[i], _maxY[i] - _minY[i]);
+		}
+		Arrays.sort(extents);
+
+		double size = extents[n / 2];
+
+		while((_extentX - _originX) / size >= MAX_INDEX || (_extentY - _originY) / size >= MAX_INDEX) {
+			size *= 2;
+		}
+
+		while(coverage(size, (long) MAX_CELLS_PER_SEGMENT * n) > (long) MAX_CELLS_PER_SEGMENT * n) {
+			size *= 2;
+		}
+
+		return size;
+	}
+
+	/**
+	 * @param size -- a candidate cell size
+	 * @param limit -- the most entries of interest
+	 * @return the number of (segment, cell) entries a grid with that cell size would hold;
+	 *         counting stops once it passes @limit
+	 */
+	private long coverage(double size, long limit)
+	{
+		long total = 0;
+
+		for(int i = 0; i < _segments.size(); i++) {
+			long columns = (long) ((_maxX[i] - _originX) / size) - (long) ((_minX[i] - _originX) / size) + 1;
+			long rows = (long) ((_maxY[i] - _originY) / size) - (long) ((_minY[i] - _originY) / size) + 1;
+
+			total += columns * rows;
+			if(total > limit) return total;
+		}
+
+		return total;
+	}
+
+	private void buildCells()
+	{
+		Map<Long, List<Integer>> buckets = new HashMap<Long, List<Integer>>();
+
+		for(int i = 0; i < _segments.size(); i++) {
+			for(long column = column(_minX[i]); column <= column(_maxX[i]); column++) {
+				for(long row = row(_minY[i]); row <= row(_maxY[i]); row++) {
+					buckets.computeIfAbsent(cellKey(column, row), key -> new ArrayList<Integer>()).add(i);
+				}
+			}
+		}
+
+		_cells = new HashMap<Long, int[]>();
+		for(Map.Entry<Long, List<Integer>> bucket : buckets.entrySet()) {
+			_cells.put(bucket.getKey(), bucket.getValue().stream().mapToInt(Integer::intValue).toArray());
+		}
+	}
+
+	private long column(double x) { return (long) ((x - _originX) / _cellSize); }
+	private long row(double y) { return (long) ((y - _originY) / _cellSize); }
+
+	// Columns and rows inside the bounding box are below MAX_INDEX (see chooseCellSize)
+	private static long cellKey(long column, long row) { return (column << 32) | row; }
+
+	/**
+	 * @return every pair (i, j), i < j, of segments whose bounding boxes overlap;
+	 *         sorted and without duplicates
+	 */
+	public SegmentPairs candidatePairs()
+	{
+		SegmentPairs pairs = new SegmentPairs();
+
+		for(Map.Entry<Long, int[]> cell : _cells.entrySet()) {
+			int[] bucket = cell.getValue();
+
+			for(int i = 0; i < bucket.length; i++) {
+				for(int j = i + 1; j < bucket.length; j++) {
+					int s1 = Math.min(bucket[i], bucket[j]);
+					int s2 = Math.max(bucket[i], bucket[j]);
+
+					if(!boxesOverlap(s1, s2)) continue;
+
+					// A pair sharing several cells is reported only from the cell holding
+					// the lower left corner of the overlap of their boxes
+					double cornerX = Math.max(_minX[s1], _minX[s2]);
+					double cornerY = Math.max(_minY[s1], _minY[s2]);
+					if(cellKey(column(cornerX), row(cornerY)) != cell.getKey()) continue;
+
+					pairs.add(s1, s2);
+				}
+			}
+		}
+
+		pairs.sortDistinct();
+
+		return pairs;
+	}
+
+	/**
+	 * @param pt -- a point
+	 * @return the segments whose bounding boxes contain @pt (within epsilon), in list order
+	 */
+	public List<Segment> segmentsNear(Point pt)
+	{
+		List<Segment> near = new ArrayList<Segment>();
+
+		if(pt == null || _segments.isEmpty()) return near;
+
+		double x = pt.getX();
+		double y = pt.getY();
+		if(x < _originX || y < _originY || x > _extentX || y > _extentY) return near;
+
+		int[] bucket = _cells.get(cellKey(column(x), row(y)));
+		if(bucket == null) return near;
+
+		for(int segment : bucket) {
+			if(_minX[segment] <= x && x <= _maxX[segment] &&
+			   _minY[segment] <= y && y <= _maxY[segment]) near.add(_segments.get(segment));
+		}
+
+		return near;
+	}
+
+	private boolean boxesOverlap(int s1, int s2)
+	{
+		return _minX[s1] <= _maxX[s2] && _minX[s2] <= _maxX[s1] &&
+			   _minY[s1] <= _maxY[s2] && _minY[s2] <= _maxY[s1];
+	}
+}
@@ -0,0 +1,73 @@
+package preprocessor.delegates;
+
+import java.util.Arrays;
+
+/**
+ * A growable buffer of pairs of segment indices. Each pair is packed into a single long
+ * (first index in the high word) so that candidate pairs can be collected, sorted and
+ * merged without allocating an object per pair.
+ */
+public class SegmentPairs
+{
+	protected long[] _pairs;
+	protected int _size;
+
+	public SegmentPairs() { this(16); }
+
+	public SegmentPairs(int capacity)
+	{
+		_pairs = new long[Math.max(capacity, 1)];
+		_size = 0;
+	}
+
+	public int size() { return _size; }
+	public boolean isEmpty() { return _size == 0; }
+
+	/**
+	 * @param index -- position in the buffer
+	 * @return the packed pair at @index
+	 */
+	public long get(int index) { return _pairs[index]; }
+
+	public static long pack(int first, int second) { return ((long) first << 32) | (second & 0xFFFFFFFFL); }
+	public static int first(long pair) { return (int) (pair >>> 32); }
+	public static int second(long pair) { return (int) pair; }
+
+	/**
+	 * @param first -- index of a segment
+	 * @param second -- index of a segment
+	 */
+	public void add(int first, int second)
+	{
+		if(_size == _pairs.length) _pairs = Arrays.copyOf(_pairs, _pairs.length * 2);
+
+		_pairs[_size++] = pack(first, second);
+	}
+
+	/**
+	 * @param that -- pairs to append to this buffer
+	 */
+	public void addAll(SegmentPairs that)
+	{
+		if(_size + that._size > _pairs.length) {
+			_pairs = Arrays.copyOf(_pairs, Math.max(_pairs.length * 2, _size + that._size));
+		}
+
+		System.arraycopy(that._pairs, 0, _pairs, _size, that._size);
+		_size += that._size;
+	}
+
+	/**
+	 * Sorts the pairs by first index, then second index, and removes duplicates.
+	 */
+	public void sortDistinct()
+	{
+		Arrays.sort(_pairs, 0, _size);
+
+		int distinct = 0;
+		for(int i = 0; i < _size; i++) {
+			if(distinct == 0 || _pairs[distinct - 1] != _pairs[i]) _pairs[distinct++] = _pairs[i];
+		}
+		_size = distinct;
+	}
+}
@@ -0,0 +1,106 @@
+package preprocessor.delegates;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import geometry_objects.Segment;
+import geometry_objects.SegmentFactory;
+import geometry_objects.points.Point;
+
+/**
+ * Cuts a segment at points lying in its middle into consecutive sub-segments.
+ *
+ * Each point is placed by its parameter t along the segment, measured from the lesser
+ * endpoint (Point.compareTo) to the greater, so that (on any line) t increases in the same
+ * order the lexicographic ordering gives. The parameters are computed once into a double[],
+ * and a sorted copy of it gives the position of each point (a binary search); no ordered set
+ * of points, nor any boxed key, is built.
+ */
+public class SegmentSplitter
+{
+	/**
+	 * @param segment -- a segment
+	 * @param points -- distinct points strictly between the endpoints of @segment
+	 * @return the endpoints of @segment and @points, in order from the lesser endpoint
+	 */
+	public static Point[] orderAlong(Segment segment, List<Point> points)
+	{
+		if(segment == null || points == null) throw new NullPointerException();
+
+		Point low = segment.getPoint1();
+		Point high = segment.getPoint2();
+		if(low.compareTo(high) > 0) {
+			low = segment.getPoint2();
+			high = segment.getPoint1();
+		}
+
+		int n = points.size();
+
+		double dx = high.getX() - low.getX();
+		double dy = high.getY() - low.getY();
+		double lengthSquared = dx * dx + dy * dy;
+
+		double[] parameters = new double[n];
+
+		for(int i = 0; i < n; i++) {
+			Point point = points.get(i);
+
+			parameters[i] = ((point.getX() - low.getX()) * dx + (point.getY() - low.getY()) * dy) / lengthSquared;
+		}
+
+		double[] sorted = parameters.clone();
+		Arrays.sort(sorted);
+
+		Point[] ordered = new Point[n + 2];
+
+		ordered[0] = low;
+		for(int i = 0; i < n; i++) {
+			// Points with equal parameters take the following places, in the order given
+			int position = lowerBound(sorted, parameters[i]) + 1;
+			while(ordered[position] != null) position++;
+
+			ordered[position] = points.get(i);
+		}
+		ordered[n + 1] = high;
+
+		return ordered;
+	}
+
+	/*
+	 * @param sorted -- parameters in ascending order (Arrays.sort)
+	 * @return the first position in @sorted of a parameter not less than @t
+	 */
+	private static int lowerBound(double[] sorted, double t)
+	{
+		int low = 0;
+		int high = sorted.length;
+
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+
+			if(Double.compare(sorted[middle], t) < 0) low = middle + 1;
+			else high = middle;
+		}
+
+		return low;
+	}
+
+	/**
+	 * Adds the n + 1 sub-segments between consecutive points of @segment; each runs from
+	 * the lesser of its endpoints to the greater.
+	 *
+	 * @param segment -- a segment
+	 * @param points -- distinct points strictly between the endpoints of @segment
+	 * @param factory -- makes (interns) the sub-segments
+	 * @param subSegments -- collects the sub-segments
+	 */
+	public static void split(Segment segment, List<Point> points, SegmentFactory factory, Collection<Segment> subSegments)
+	{
+		Point[] ordered = orderAlong(segment, points);
+
+		for(int i = 1; i < ordered.length; i++) {
+			subSegments.add(factory.get(ordered[i - 1], ordered[i]));
+		}
+	}
+}
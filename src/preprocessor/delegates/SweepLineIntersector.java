@@ -0,0 +1,330 @@
+package preprocessor.delegates;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+import geometry_objects.Segment;
+import geometry_objects.points.Point;
+import utilities.math.MathUtilities;
+
+/**
+ * A Bentley-Ottmann sweep over a list of segments: finds the pairs of segments that cross
+ * in the middle of one another in O((n + k) log n) time for n segments and k crossings.
+ *
+ * The sweep line is vertical and moves left to right; events sharing an x coordinate are
+ * handled bottom to top. The status structure orders the segments the sweep line currently
+ * cuts by their y coordinate on it.
+ *
+ * Pairs are reported by position in the given list and are candidates only: callers confirm
+ * each pair with the intersection delegates, so the sweep only has to avoid missing a pair.
+ */
+public class SweepLineIntersector
+{
+	// Stands in for the sweep point when searching the status structure
+	private static final Integer PROBE = -1;
+
+	// Segment endpoints; (_lx, _ly) is the lexicographically smaller endpoint
+	protected double[] _lx;
+	protected double[] _ly;
+	protected double[] _rx;
+	protected double[] _ry;
+	protected double[] _slope;
+
+	// The current event point; status comparisons are made relative to it
+	protected double _sweepX;
+	protected double _sweepY;
+	protected boolean _afterEvent;
+
+	protected TreeSet<SweepEvent> _events;
+	protected TreeSet<Integer> _status;
+
+	/**
+	 * @param segments -- the segments of a figure
+	 * @return every pair (i, j), i < j, of indices into @segments whose segments may cross
+	 *         strictly between their endpoints; sorted and without duplicates
+	 */
+	public static SegmentPairs findCrossingPairs(List<Segment> segments)
+	{
+		if(segments == null) throw new NullPointerException();
+
+		return new SweepLineIntersector(segments).sweep();
+	}
+
+	protected SweepLineIntersector(List<Segment> segments)
+	{
+		int n = segments.size();
+
+		_lx = new double[n];
+		_ly = new double[n];
+		_rx = new double[n];
+		_ry = new double[n];
+		_slope = new double[n];
+
+		_events = new TreeSet<SweepEvent>((e1, e2) -> comparePoints(e1._x, e1._y, e2._x, e2._y));
+		_status = new TreeSet<Integer>(this::compareSegments);
+
+		for(int i = 0; i < n; i++) {
+			Point p1 = segments.get(i).getPoint1();
+			Point p2 = segments.get(i).getPoint2();
+
+			// A segment without length crosses nothing
+			if(p1.equals(p2)) continue;
+
+			// Nearly vertical segments are made vertical so that both endpoints share an x
+			boolean vertical = MathUtilities.doubleEquals(p1.getX(), p2.getX());
+
+			int order = vertical ? Double.compare(p1.getY(), p2.getY())
+					             : comparePoints(p1.getX(), p1.getY(), p2.getX(), p2.getY());
+
+			Point left = order < 0 ? p1 : p2;
+			Point right = order < 0 ? p2 : p1;
+
+			_lx[i] = left.getX();
+			_ly[i] = left.getY();
+			_rx[i] = vertical ? left.getX() : right.getX();
+			_ry[i] = right.getY();
+
+			_slope[i] = vertical ? Double.POSITIVE_INFINITY : (_ry[i] - _ly[i]) / (_rx[i] - _lx[i]);
+
+			addEvent(_lx[i], _ly[i]).addStart(i);
+			addEvent(_rx[i], _ry[i]);
+		}
+	}
+
+	/**
+	 * Process every event; crossings found along the way add events of their own.
+	 * @return the candidate pairs
+	 */
+	protected SegmentPairs sweep()
+	{
+		SegmentPairs candidates = new SegmentPairs();
+
+		while(!_events.isEmpty()) {
+			handleEvent(_events.pollFirst(), candidates);
+		}
+
+		candidates.sortDistinct();
+
+		return candidates;
+	}
+
+	/**
+	 * Segments passing through the event point are taken out of the status; each pair of them
+	 * that continues past the point crosses there. The continuing segments and those starting
+	 * at the point are then put back in their order just right of the point.
+	 * @param event -- the next event point
+	 * @param candidates -- collects crossing pairs
+	 */
+	protected void handleEvent(SweepEvent event, SegmentPairs candidates)
+	{
+		_sweepX = event._x;
+		_sweepY = event._y;
+		_afterEvent = false;
+
+		List<Integer> continuing = new ArrayList<Integer>();
+
+		Iterator<Integer> it = _status.tailSet(PROBE, false).iterator();
+		while(it.hasNext()) {
+			Integer segment = it.next();
+
+			if(!MathUtilities.doubleEquals(yAt(segment), _sweepY)) break;
+
+			it.remove();
+
+			if(!endsAtSweepPoint(segment)) continuing.add(segment);
+		}
+
+		for(int i = 0; i < continuing.size(); i++) {
+			for(int j = i + 1; j < continuing.size(); j++) {
+				int s1 = continuing.get(i);
+				int s2 = continuing.get(j);
+				candidates.add(Math.min(s1, s2), Math.max(s1, s2));
+			}
+		}
+
+		_afterEvent = true;
+
+		_status.addAll(continuing);
+		if(event._starts != null) _status.addAll(event._starts);
+
+		if(_status.isEmpty()) return;
+
+		// Nothing passes through the point: the segments above and below it become neighbors
+		if(continuing.isEmpty() && event._starts == null) {
+			checkForCrossing(_status.lower(PROBE), _status.higher(PROBE));
+			return;
+		}
+
+		Integer lowest = _status.higher(PROBE);
+		Integer highest = lowest;
+		for(Integer segment : _status.tailSet(lowest, false)) {
+			if(!MathUtilities.doubleEquals(yAt(segment), _sweepY)) break;
+			highest = segment;
+		}
+
+		checkForCrossing(_status.lower(lowest), lowest);
+		checkForCrossing(highest, _status.higher(highest));
+	}
+
+	/**
+	 * Neighboring segments that cross ahead of the sweep line get an event at their crossing.
+	 * @param below -- a segment in the status (may be null)
+	 * @param above -- the segment just above @below in the status (may be null)
+	 */
+	protected void checkForCrossing(Integer below, Integer above)
+	{
+		if(below == null || above == null) return;
+
+		double rx = _rx[below] - _lx[below];
+		double ry = _ry[below] - _ly[below];
+		double sx = _rx[above] - _lx[above];
+		double sy = _ry[above] - _ly[above];
+
+		// Parallel segments (the cross product is small relative to both lengths) never cross
+		double denominator = rx * sy - ry * sx;
+		if(denominator * denominator <= MathUtilities.EPSILON * MathUtilities.EPSILON *
+				                        (rx * rx + ry * ry) * (sx * sx + sy * sy)) return;
+
+		double qx = _lx[above] - _lx[below];
+		double qy = _ly[above] - _ly[below];
+
+		double t = (qx * sy - qy * sx) / denominator;
+		double u = (qx * ry - qy * rx) / denominator;
+
+		if(t < -MathUtilities.EPSILON || t > 1 + MathUtilities.EPSILON) return;
+		if(u < -MathUtilities.EPSILON || u > 1 + MathUtilities.EPSILON) return;
+
+		double x = _lx[below] + t * rx;
+		double y = _ly[below] + t * ry;
+
+		if(comparePoints(x, y, _sweepX, _sweepY) > 0) addEvent(x, y);
+	}
+
+	/**
+	 * @return the event at (x, y); created if one does not already exist
+	 */
+	protected SweepEvent addEvent(double x, double y)
+	{
+		SweepEvent event = new SweepEvent(x, y);
+
+		SweepEvent existing = _events.ceiling(event);
+		if(existing != null && comparePoints(x, y, existing._x, existing._y) == 0) return existing;
+
+		_events.add(event);
+		return event;
+	}
+
+	/**
+	 * @param segment -- a segment through the sweep point
+	 * @return true if @segment ends at (or, through round-off, before) the sweep point
+	 */
+	protected boolean endsAtSweepPoint(int segment)
+	{
+		if(MathUtilities.doubleEquals(_rx[segment], _sweepX) &&
+		   MathUtilities.doubleEquals(_ry[segment], _sweepY)) return true;
+
+		return comparePoints(_rx[segment], _ry[segment], _sweepX, _sweepY) <= 0;
+	}
+
+	/**
+	 * @param segment -- a segment in the status
+	 * @return the y coordinate where the sweep line cuts @segment; a vertical segment
+	 *         is cut at the sweep point (limited to its endpoints)
+	 */
+	protected double yAt(int segment)
+	{
+		if(Double.isInfinite(_slope[segment])) return Math.min(Math.max(_sweepY, _ly[segment]), _ry[segment]);
+
+		if(_sweepX <= _lx[segment]) return _ly[segment];
+		if(_sweepX >= _rx[segment]) return _ry[segment];
+
+		return _ly[segment] + _slope[segment] * (_sweepX - _lx[segment]);
+	}
+
+	/**
+	 * Order of the status structure: bottom to top along the sweep line.
+	 *
+	 * Segments meeting on the sweep line below the sweep point have already crossed, so the
+	 * steeper one is above; those meeting above it have not crossed yet, so the steeper one
+	 * is below. At the sweep point itself the order is that of just before or just after the
+	 * event depending on which part of the event is being handled.
+	 */
+	protected int compareSegments(Integer s1, Integer s2)
+	{
+		if(s1.equals(s2)) return 0;
+		if(s1.equals(PROBE)) return compareProbe(s2);
+		if(s2.equals(PROBE)) return -compareProbe(s1);
+
+		double y1 = yAt(s1);
+		double y2 = yAt(s2);
+		if(!MathUtilities.doubleEquals(y1, y2)) return Double.compare(y1, y2);
+
+		boolean crossed = MathUtilities.doubleEquals(y1, _sweepY) ? _afterEvent : y1 < _sweepY;
+
+		int bySlope = compareSlopes(_slope[s1], _slope[s2]);
+		if(bySlope != 0) return crossed ? bySlope : -bySlope;
+
+		// Overlapping collinear segments
+		return Integer.compare(s1, s2);
+	}
+
+	/**
+	 * The probe sits just below every segment through the sweep point.
+	 */
+	private int compareProbe(Integer segment)
+	{
+		double y = yAt(segment);
+
+		return y < _sweepY && !MathUtilities.doubleEquals(y, _sweepY) ? 1 : -1;
+	}
+
+	private static int compareSlopes(double m1, double m2)
+	{
+		if(Double.isInfinite(m1) && Double.isInfinite(m2)) return 0;
+		if(MathUtilities.doubleEquals(m1, m2)) return 0;
+
+		return Double.compare(m1, m2);
+	}
+
+	/**
+	 * Lexicographic ordering of event points: x first, then y.
+	 *
+	 * The order is exact. Merging points within epsilon could put a crossing found later
+	 * ahead of the event that found it; nearly coincident events are instead handled one
+	 * after another, each taking every segment passing within epsilon of it.
+	 */
+	protected static int comparePoints(double x1, double y1, double x2, double y2)
+	{
+		int byX = Double.compare(x1, x2);
+		if(byX != 0) return byX;
+
+		return Double.compare(y1, y2);
+	}
+
+	/**
+	 * A point at which the status structure changes: segment endpoints and crossings.
+	 */
+	protected static class SweepEvent
+	{
+		protected double _x;
+		protected double _y;
+
+		// Segments whose left endpoint is this point; null if there are none
+		protected List<Integer> _starts;
+
+		protected SweepEvent(double x, double y)
+		{
+			_x = x;
+			_y = y;
+		}
+
+		protected void addStart(int segment)
+		{
+			if(_starts == null) _starts = new ArrayList<Integer>();
+
+			_starts.add(segment);
+		}
+	}
+}
@@ -0,0 +1,674 @@
+package preprocessor.delegates;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import exceptions.FactException;
+import geometry_objects.Segment;
+import geometry_objects.Triangle;
+import geometry_objects.points.Point;
+import utilities.math.MathUtilities;
+
+/**
+ * The segments of a figure as a graph on their endpoints, for finding the triangles among them.
+ *
+ * Points are numbered by degree (fewest segments first, ties broken by Point.compareTo), and each
+ * segment is directed from its lower-numbered endpoint to the higher. A triangle is then found
+ * exactly once, from its lowest-numbered vertex u: for every two higher neighbors v < w of u the
+ * closing segment vw is looked up by its (packed) endpoint ids. Since a point has few higher
+ * neighbors once high-degree points come last, this takes O(sum of squared out-degrees) probes,
+ * at most O(m^1.5) for m segments, instead of testing every triple of segments. Triples on one
+ * line are dropped by an orientation test that agrees with Triangle, so every triple visited
+ * makes a Triangle.
+ *
+ * Dense graphs (many segments for their points, as in fully connected figures) are walked with
+ * bitsets instead: each id keeps its higher neighbors as a row of bits, and the third vertices of
+ * a segment uv are the bits set in both rows, found a word (64 candidates) at a time with AND.
+ * The mode is chosen from the measured density; both find the same triangles in the same order.
+ */
+public class TriangleGraph
+{
+	/**
+	 * Receives the triangles of the graph as vertex ids, u < v < w.
+	 */
+	@FunctionalInterface
+	public interface TriangleVisitor
+	{
+		void visit(int u, int v, int w);
+	}
+
+	/**
+	 * Makes the result for one triangle, given as vertex ids u < v < w; null for none.
+	 * May be called from many threads at once.
+	 */
+	@FunctionalInterface
+	public interface TriangleMapper<T>
+	{
+		T map(int u, int v, int w);
+	}
+
+	// Graphs with at least this fraction of all possible segments are walked with bitsets
+	public static final double DENSE_THRESHOLD = 1.0 / 16;
+
+	// Above this many points the bitsets (points^2 / 8 bytes) are not built
+	public static final int MAX_DENSE_POINTS = 1 << 13;
+
+	// Sines of angles above this are too wide for two sides to share a line key
+	private static final double TURN_MARGIN = 10 * MathUtilities.EPSILON;
+
+	// Points by id, and ids by point
+	protected Point[] _points;
+	protected Map<Point, Integer> _ids;
+
+	// For each id, the ids of its higher-numbered (and lower-numbered) neighbors in increasing order
+	protected int[][] _higher;
+	protected int[][] _lower;
+
+	// In dense mode, the higher neighbors of each id as a row of _words bits (null otherwise)
+	protected long[] _bits;
+	protected int _words;
+
+	// Each segment by the packed ids of its endpoints (lower id first)
+	protected Map<Long, Segment> _edges;
+
+	/**
+	 * @param segments -- the segments of a figure; segments without length are ignored
+	 */
+	public TriangleGraph(Collection<Segment> segments)
+	{
+		this(segments, null);
+	}
+
+	/**
+	 * @param segments -- the segments of a figure; segments without length are ignored
+	 * @param dense -- whether to walk the graph with bitsets; null to decide by density
+	 */
+	public TriangleGraph(Collection<Segment> segments, Boolean dense)
+	{
+		if(segments == null) throw new NullPointerException();
+
+		Map<Point, List<Point>> neighbors = new LinkedHashMap<Point, List<Point>>();
+
+		for(Segment segment : segments) {
+			Point p1 = segment.getPoint1();
+			Point p2 = segment.getPoint2();
+
+			if(p1.equals(p2)) continue;
+
+			neighbors.computeIfAbsent(p1, key -> new ArrayList<Point>()).add(p2);
+			neighbors.computeIfAbsent(p2, key -> new ArrayList<Point>()).add(p1);
+		}
+
+		_points = neighbors.keySet().toArray(new Point[0]);
+		Arrays.sort(_points, (left, right) -> {
+			int byDegree = Integer.compare(neighbors.get(left).size(), neighbors.get(right).size());
+			return byDegree != 0 ? byDegree : left.compareTo(right);
+		});
+
+		_ids = new HashMap<Point, Integer>();
+		for(int id = 0; id < _points.length; id++) _ids.put(_points[id], id);
+
+		_edges = new HashMap<Long, Segment>();
+		for(Segment segment : segments) {
+			if(segment.getPoint1().equals(segment.getPoint2())) continue;
+
+			_edges.put(pack(_ids.get(segment.getPoint1()), _ids.get(segment.getPoint2())), segment);
+		}
+
+		_higher = new int[_points.length][];
+		_lower = new int[_points.length][];
+		for(int id = 0; id < _points.length; id++) {
+			int[] higher = new int[neighbors.get(_points[id]).size()];
+			int[] lower = new int[higher.length];
+			int numHigher = 0;
+			int numLower = 0;
+
+			for(Point neighbor : neighbors.get(_points[id])) {
+				int other = _ids.get(neighbor);
+
+				if(other > id) higher[numHigher++] = other;
+				else lower[numLower++] = other;
+			}
+
+			_higher[id] = sorted(higher, numHigher);
+			_lower[id] = sorted(lower, numLower);
+		}
+
+		if(dense == null) dense = isDense(_points.length, _edges.size());
+		if(dense) buildBits();
+	}
+
+	/**
+	 * @param points -- a number of points
+	 * @param segments -- a number of distinct segments among them
+	 * @return true if such a graph is best walked with bitsets
+	 */
+	public static boolean isDense(int points, int segments)
+	{
+		if(points < 3 || points > MAX_DENSE_POINTS) return false;
+
+		return segments >= DENSE_THRESHOLD * points * (points - 1) / 2;
+	}
+
+	/*
+	 * Sets the bit of each higher neighbor in the row of each id.
+	 */
+	private void buildBits()
+	{
+		_words = (_points.length + 63) >>> 6;
+		_bits = new long[_points.length * _words];
+
+		for(int id = 0; id < _points.length; id++) {
+			int row = id * _words;
+
+			for(int other : _higher[id]) _bits[row + (other >>> 6)] |= 1L << other;
+		}
+	}
+
+	/**
+	 * @return true if the triangles are found with bitsets
+	 */
+	public boolean isDense() { return _bits != null; }
+
+	/*
+	 * @param ids -- ids, the first @count of which are used
+	 * @return those ids in increasing order, without repeats (a segment given twice lists
+	 *         the neighbor twice)
+	 */
+	private static int[] sorted(int[] ids, int count)
+	{
+		int[] sorted = Arrays.copyOf(ids, count);
+		Arrays.sort(sorted);
+
+		int distinct = 0;
+		for(int i = 0; i < sorted.length; i++) {
+			if(i == 0 || sorted[i] != sorted[i - 1]) sorted[distinct++] = sorted[i];
+		}
+
+		return distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+	}
+
+	/**
+	 * @return the key of the edge between ids @a and @b (in either order)
+	 */
+	protected static long pack(int a, int b)
+	{
+		return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+	}
+
+	public int numPoints() { return _points.length; }
+	public int numSegments() { return _edges.size(); }
+
+	public Point getPoint(int id) { return _points[id]; }
+
+	/**
+	 * @param pt -- a point
+	 * @return the id of @pt; -1 if no segment ends at @pt
+	 */
+	public int getId(Point pt) { return _ids.getOrDefault(pt, -1); }
+
+	/**
+	 * @return the segment between ids @a and @b; null if there is none
+	 */
+	public Segment getSegment(int a, int b) { return _edges.get(pack(a, b)); }
+
+	public boolean hasSegment(int a, int b) { return _edges.containsKey(pack(a, b)); }
+
+	/**
+	 * @return the number of segments at the point with id @id
+	 */
+	public int degree(int id) { return _higher[id].length + _lower[id].length; }
+
+	/**
+	 * @param a -- a point id
+	 * @param b -- another point id
+	 * @return the ids joined by segments to both @a and @b, in increasing order
+	 */
+	public int[] commonNeighbors(int a, int b)
+	{
+		// Go through the neighbors of whichever has fewer
+		if(degree(a) > degree(b)) {
+			int t = a;
+			a = b;
+			b = t;
+		}
+
+		int[] common = new int[degree(a)];
+		int count = 0;
+
+		for(int c : _lower[a]) {
+			if(c != b && hasSegment(b, c)) common[count++] = c;
+		}
+		for(int c : _higher[a]) {
+			if(c != b && hasSegment(b, c)) common[count++] = c;
+		}
+
+		return Arrays.copyOf(common, count);
+	}
+
+	/**
+	 * Adds a segment to the graph. An endpoint that is not yet a point of the graph is given
+	 * the next id; ids are not renumbered by degree, so many additions may leave the walk
+	 * slower than that of a graph built afresh, but never different in what it finds.
+	 * Not to be called while the graph is walked.
+	 *
+	 * @param segment -- a segment
+	 * @return true if the graph changed: @segment has length, and its endpoints were not joined
+	 */
+	public boolean addSegment(Segment segment)
+	{
+		if(segment.getPoint1().equals(segment.getPoint2())) return false;
+
+		int a = addPoint(segment.getPoint1());
+		int b = addPoint(segment.getPoint2());
+
+		if(_edges.putIfAbsent(pack(a, b), segment) != null) return false;
+
+		int low = Math.min(a, b);
+		int high = Math.max(a, b);
+
+		_higher[low] = insert(_higher[low], high);
+		_lower[high] = insert(_lower[high], low);
+
+		if(_bits != null) _bits[low * _words + (high >>> 6)] |= 1L << high;
+
+		return true;
+	}
+
+	/**
+	 * Removes a segment from the graph. Its endpoints keep their ids, even if no segment
+	 * is left at them. Not to be called while the graph is walked.
+	 *
+	 * @param segment -- a segment
+	 * @return true if the graph changed: its endpoints were joined
+	 */
+	public boolean removeSegment(Segment segment)
+	{
+		int a = getId(segment.getPoint1());
+		int b = getId(segment.getPoint2());
+
+		if(a < 0 || b < 0 || _edges.remove(pack(a, b)) == null) return false;
+
+		int low = Math.min(a, b);
+		int high = Math.max(a, b);
+
+		_higher[low] = delete(_higher[low], high);
+		_lower[high] = delete(_lower[high], low);
+
+		if(_bits != null) _bits[low * _words + (high >>> 6)] &= ~(1L << high);
+
+		return true;
+	}
+
+	/*
+	 * @return the id of @pt, given the next one (with no neighbors) if it is new
+	 */
+	private int addPoint(Point pt)
+	{
+		Integer id = _ids.get(pt);
+		if(id != null) return id;
+
+		int added = _points.length;
+
+		_points = Arrays.copyOf(_points, added + 1);
+		_points[added] = pt;
+		_ids.put(pt, added);
+
+		_higher = Arrays.copyOf(_higher, added + 1);
+		_higher[added] = new int[0];
+		_lower = Arrays.copyOf(_lower, added + 1);
+		_lower[added] = new int[0];
+
+		// One row more, perhaps one word more in each
+		if(_bits != null) buildBits();
+
+		return added;
+	}
+
+	/*
+	 * @return @sorted with @id inserted in order
+	 */
+	private static int[] insert(int[] sorted, int id)
+	{
+		int position = -Arrays.binarySearch(sorted, id) - 1;
+
+		int[] inserted = new int[sorted.length + 1];
+		System.arraycopy(sorted, 0, inserted, 0, position);
+		inserted[position] = id;
+		System.arraycopy(sorted, position, inserted, position + 1, sorted.length - position);
+
+		return inserted;
+	}
+
+	/*
+	 * @return @sorted without @id
+	 */
+	private static int[] delete(int[] sorted, int id)
+	{
+		int position = Arrays.binarySearch(sorted, id);
+
+		int[] deleted = new int[sorted.length - 1];
+		System.arraycopy(sorted, 0, deleted, 0, position);
+		System.arraycopy(sorted, position + 1, deleted, position, sorted.length - position - 1);
+
+		return deleted;
+	}
+
+	/**
+	 * @param u -- a point id
+	 * @return a measure of the work of forEachTriangle(u): segment lookups, or words intersected
+	 */
+	public long cost(int u)
+	{
+		long higher = _higher[u].length;
+
+		if(_bits != null) return 1 + higher * _words;
+
+		return 1 + higher * (higher - 1) / 2;
+	}
+
+	/**
+	 * @return work[u] is the cost of the vertices before u; work[numPoints()] is the total
+	 */
+	public long[] cumulativeCost()
+	{
+		long[] work = new long[_points.length + 1];
+		for(int u = 0; u < _points.length; u++) work[u + 1] = work[u] + cost(u);
+
+		return work;
+	}
+
+	/**
+	 * @param work -- as from cumulativeCost()
+	 * @param low -- first vertex of a range
+	 * @param high -- end (exclusive) of the range; at least @low + 2
+	 * @return the vertex in (@low, @high) where half the work of the range is done
+	 */
+	public static int split(long[] work, int low, int high)
+	{
+		long half = (work[low] + work[high]) >>> 1;
+
+		int first = low + 1;
+		int last = high - 1;
+
+		// The first vertex whose preceding work reaches half
+		while(first < last) {
+			int middle = (first + last) >>> 1;
+
+			if(work[middle] < half) first = middle + 1;
+			else last = middle;
+		}
+
+		return first;
+	}
+
+	/**
+	 * Visits every triangle of the graph once: three points pairwise joined by segments and
+	 * not lying on one line.
+	 *
+	 * @param visitor -- receives the ids of each triangle
+	 */
+	public void forEachTriangle(TriangleVisitor visitor)
+	{
+		for(int u = 0; u < _points.length; u++) forEachTriangle(u, visitor);
+	}
+
+	/**
+	 * Visits the triangles whose lowest-numbered vertex is @u.
+	 *
+	 * @param u -- a point id
+	 * @param visitor -- receives the ids of each triangle
+	 */
+	public void forEachTriangle(int u, TriangleVisitor visitor)
+	{
+		if(_bits != null) forEachDenseTriangle(u, visitor);
+		else forEachSparseTriangle(u, visitor);
+	}
+
+	/*
+	 * Pairs up the higher neighbors of u and looks up the segment between each pair.
+	 */
+	private void forEachSparseTriangle(int u, TriangleVisitor visitor)
+	{
+		int[] higher = _higher[u];
+
+		for(int i = 0; i < higher.length; i++) {
+			for(int j = i + 1; j < higher.length; j++) {
+				int v = higher[i];
+				int w = higher[j];
+
+				if(hasSegment(v, w) && !areCollinear(u, v, w)) visitor.visit(u, v, w);
+			}
+		}
+	}
+
+	/*
+	 * For each higher neighbor v of u, intersects the rows of u and v; every bit left is a w > v
+	 * joined to both. Words below v's own hold no higher neighbors of v and are skipped.
+	 */
+	private void forEachDenseTriangle(int u, TriangleVisitor visitor)
+	{
+		int rowU = u * _words;
+
+		for(int v : _higher[u]) {
+			int rowV = v * _words;
+
+			for(int word = v >>> 6; word < _words; word++) {
+				long common = _bits[rowU + word] & _bits[rowV + word];
+
+				while(common != 0) {
+					int w = (word << 6) + Long.numberOfTrailingZeros(common);
+					common &= common - 1;
+
+					if(!areCollinear(u, v, w)) visitor.visit(u, v, w);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Counts the triangles of the graph without making anything for them.
+	 *
+	 * @param histogram -- (numPoints() long) incremented at the three vertices of each triangle
+	 * @return the number of triangles
+	 */
+	public long countTriangles(int[] histogram)
+	{
+		long[] total = new long[1];
+
+		forEachTriangle((u, v, w) -> {
+			histogram[u]++;
+			histogram[v]++;
+			histogram[w]++;
+			total[0]++;
+		});
+
+		return total[0];
+	}
+
+	/**
+	 * @param low -- first vertex
+	 * @param high -- end (exclusive) of the vertices
+	 * @return a cursor over the triangles whose lowest vertex is in [@low, @high), in the order
+	 *         forEachTriangle visits them
+	 */
+	public Cursor cursor(int low, int high) { return new Cursor(low, high); }
+
+	/**
+	 * Steps through triangles one at a time, as forEachTriangle does all at once. Only the
+	 * position of the walk is kept (the vertex, the neighbor and the pair or word reached),
+	 * so a cursor takes constant space however many triangles remain.
+	 */
+	public class Cursor
+	{
+		// The current vertex and the end of the range
+		protected int _u;
+		protected int _high;
+
+		// Index into the higher neighbors of _u of v, and (sparse) of the next w to try
+		protected int _i;
+		protected int _j;
+
+		// Dense: the next word of the rows to intersect, and the bits left of the word before it
+		protected int _word;
+		protected long _common;
+
+		// The triangle reached
+		protected int _v;
+		protected int _w;
+
+		protected Cursor(int low, int high)
+		{
+			_high = high;
+			start(low);
+		}
+
+		private void start(int u)
+		{
+			_u = u;
+			_i = 0;
+			_j = 1;
+			_common = 0;
+			_word = u < _high && _higher[u].length > 0 ? _higher[u][0] >>> 6 : 0;
+		}
+
+		/**
+		 * @return the vertex the walk is at: the lowest vertex of the triangle reached; the
+		 *         triangles of later vertices are all still ahead
+		 */
+		public int getU() { return _u; }
+		public int getV() { return _v; }
+		public int getW() { return _w; }
+
+		/**
+		 * Ends the range at @high, which must be after the current vertex.
+		 */
+		public void setHigh(int high) { _high = high; }
+
+		public int getHigh() { return _high; }
+
+		/**
+		 * Moves to the next triangle.
+		 *
+		 * @return false if there is none left in the range
+		 */
+		public boolean next()
+		{
+			while(_u < _high) {
+				if(_bits != null ? nextDense() : nextSparse()) return true;
+
+				start(_u + 1);
+			}
+
+			return false;
+		}
+
+		private boolean nextSparse()
+		{
+			int[] higher = _higher[_u];
+
+			for(; _i < higher.length; _i++, _j = _i + 1) {
+				while(_j < higher.length) {
+					int v = higher[_i];
+					int w = higher[_j++];
+
+					if(hasSegment(v, w) && !areCollinear(_u, v, w)) {
+						_v = v;
+						_w = w;
+						return true;
+					}
+				}
+			}
+
+			return false;
+		}
+
+		private boolean nextDense()
+		{
+			int[] higher = _higher[_u];
+
+			while(_i < higher.length) {
+				int v = higher[_i];
+
+				while(_common != 0) {
+					int w = ((_word - 1) << 6) + Long.numberOfTrailingZeros(_common);
+					_common &= _common - 1;
+
+					if(!areCollinear(_u, v, w)) {
+						_v = v;
+						_w = w;
+						return true;
+					}
+				}
+
+				if(_word < _words) {
+					_common = _bits[_u * _words + _word] & _bits[v * _words + _word];
+					_word++;
+				}
+				else if(++_i < higher.length) {
+					_word = higher[_i] >>> 6;
+				}
+			}
+
+			return false;
+		}
+	}
+
+	/**
+	 * @return the triangle on the points with ids @u, @v and @w; they must form one
+	 *         (as those visited by forEachTriangle do)
+	 */
+	public Triangle getTriangle(int u, int v, int w)
+	{
+		try {
+			return new Triangle(Arrays.asList(getSegment(u, v), getSegment(v, w), getSegment(u, w)));
+		}
+		catch(FactException fe) {
+			throw new IllegalArgumentException("not a triangle: " + u + ", " + v + ", " + w);
+		}
+	}
+
+	/**
+	 * Orientation test, decided as Triangle decides it. A triple that clearly turns (the sine of
+	 * every angle well above epsilon, so no two sides can share a LineKey) is settled by the
+	 * cross product alone; only nearly straight ones compare the lines of their sides.
+	 *
+	 * @return true if the points with ids @u, @v and @w are collinear
+	 */
+	public boolean areCollinear(int u, int v, int w)
+	{
+		Point a = _points[u];
+		Point b = _points[v];
+		Point c = _points[w];
+
+		double abx = b.getX() - a.getX(), aby = b.getY() - a.getY();
+		double acx = c.getX() - a.getX(), acy = c.getY() - a.getY();
+		double bcx = c.getX() - b.getX(), bcy = c.getY() - b.getY();
+
+		double cross = abx * acy - aby * acx;
+
+		// The sine of the smallest angle is at least |cross| over the square of the longest side
+		double longest = Math.max(abx * abx + aby * aby, Math.max(acx * acx + acy * acy, bcx * bcx + bcy * bcy));
+
+		if(cross * cross > TURN_MARGIN * TURN_MARGIN * longest * longest) return false;
+
+		return sidesCollinear(u, v, w);
+	}
+
+	/*
+	 * @return true if two sides of the triple share a line, the test of Triangle.isValidTriangle
+	 */
+	private boolean sidesCollinear(int u, int v, int w)
+	{
+		Segment uv = getSegment(u, v);
+		Segment vw = getSegment(v, w);
+		Segment uw = getSegment(u, w);
+
+		return uv.isCollinearWith(vw) || uv.isCollinearWith(uw) || vw.isCollinearWith(uw);
+	}
+}
@@ -0,0 +1,311 @@
+package preprocessor.delegates;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import geometry_objects.Triangle;
+
+/**
+ * A set of the triangles of a TriangleGraph, kept as the ids of their vertices.
+ *
+ * Each triangle is one long: its three ids in increasing order, 21 bits apiece. The longs live
+ * in an open-addressing (linear probing) table, for membership, and in an array in the order
+ * they were added, for iteration; there is no object per entry. Triangle objects are made
+ * only as they are asked for (by iteration), and a Triangle is looked up by the ids of its
+ * points, not by Triangle.hashCode and equals.
+ *
+ * Iteration is in the order of addition. A removed triangle leaves a hole in that order, which
+ * iteration skips; holes are squeezed out once they make up half of it.
+ */
+public class TriangleSet extends AbstractSet<Triangle>
+{
+	// Ids must fit in the 21 bits given to each
+	public static final int MAX_POINTS = 1 << 21;
+
+	private static final int ID_BITS = 21;
+	private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+	// No packed triangle is 0: its middle id is at least 1
+	private static final long EMPTY = 0;
+
+	protected TriangleGraph _graph;
+
+	// Open-addressing table, a power of two long and at most half full, and
+	// the position in _order of the triangle in each slot
+	protected long[] _table;
+	protected int[] _positions;
+
+	// The triangles in the order they were added, EMPTY where one was removed;
+	// _length entries are used, _size of them triangles
+	protected long[] _order;
+	protected int _length;
+	protected int _size;
+
+	/**
+	 * @param graph -- the graph whose triangles are kept
+	 */
+	public TriangleSet(TriangleGraph graph)
+	{
+		if(graph.numPoints() > MAX_POINTS) throw new IllegalArgumentException("more than " + MAX_POINTS + " points");
+
+		_graph = graph;
+		_table = new long[16];
+		_positions = new int[16];
+		_order = new long[8];
+		_length = 0;
+		_size = 0;
+	}
+
+	public TriangleGraph getGraph() { return _graph; }
+
+	/**
+	 * @return the ids @u, @v and @w (all different, in any order) as one long
+	 */
+	public static long pack(int u, int v, int w)
+	{
+		// Sort the three
+		if(u > v) { int t = u; u = v; v = t; }
+		if(v > w) { int t = v; v = w; w = t; }
+		if(u > v) { int t = u; u = v; v = t; }
+
+		return ((long) u << (2 * ID_BITS)) | ((long) v << ID_BITS) | w;
+	}
+
+	public static int first(long triangle) { return (int) (triangle >>> (2 * ID_BITS)); }
+	public static int second(long triangle) { return (int) ((triangle >>> ID_BITS) & ID_MASK); }
+	public static int third(long triangle) { return (int) (triangle & ID_MASK); }
+
+	/**
+	 * @param u, v, w -- the ids of the vertices of a triangle of the graph
+	 * @return true if it was not already in the set
+	 */
+	public boolean add(int u, int v, int w) { return add(pack(u, v, w)); }
+
+	/**
+	 * @param triangle -- a triangle as from pack
+	 * @return true if it was not already in the set
+	 */
+	public boolean add(long triangle)
+	{
+		int slot = find(triangle);
+		if(_table[slot] == triangle) return false;
+
+		if(_length == _order.length) _order = Arrays.copyOf(_order, 2 * _order.length);
+
+		_table[slot] = triangle;
+		_positions[slot] = _length;
+		_order[_length++] = triangle;
+		_size++;
+
+		if(2 * _size > _table.length) rehash();
+
+		return true;
+	}
+
+	public boolean remove(int u, int v, int w) { return remove(pack(u, v, w)); }
+
+	/**
+	 * @param triangle -- a triangle as from pack
+	 * @return true if it was in the set
+	 */
+	public boolean remove(long triangle)
+	{
+		int slot = find(triangle);
+		if(_table[slot] != triangle) return false;
+
+		_order[_positions[slot]] = EMPTY;
+		_size--;
+
+		vacate(slot);
+
+		if(2 * _size < _length) compact();
+
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object obj)
+	{
+		if(!(obj instanceof Triangle)) return false;
+
+		long packed = pack((Triangle) obj);
+
+		return packed != EMPTY && remove(packed);
+	}
+
+	/*
+	 * Empties @slot, moving back later entries of its run that could be found no more
+	 * across the gap (deletion without tombstones in linear probing).
+	 */
+	private void vacate(int slot)
+	{
+		int mask = _table.length - 1;
+		int gap = slot;
+
+		for(int next = (gap + 1) & mask; _table[next] != EMPTY; next = (next + 1) & mask) {
+			int home = hash(_table[next]) & mask;
+
+			// Moves back unless its home lies cyclically in (gap, next]
+			if(((next - home) & mask) >= ((next - gap) & mask)) {
+				_table[gap] = _table[next];
+				_positions[gap] = _positions[next];
+				gap = next;
+			}
+		}
+
+		_table[gap] = EMPTY;
+	}
+
+	/*
+	 * Squeezes the holes out of _order.
+	 */
+	private void compact()
+	{
+		int length = 0;
+		for(int i = 0; i < _length; i++) {
+			if(_order[i] != EMPTY) _order[length++] = _order[i];
+		}
+
+		_length = length;
+		rehash(_table.length);
+	}
+
+	/**
+	 * @param triangle -- a triangle whose vertices are points of the graph
+	 * @throws IllegalArgumentException if they are not
+	 */
+	@Override
+	public boolean add(Triangle triangle)
+	{
+		long packed = pack(triangle);
+		if(packed == EMPTY) throw new IllegalArgumentException(triangle + " is not on the points of the graph");
+
+		return add(packed);
+	}
+
+	public boolean contains(int u, int v, int w) { return contains(pack(u, v, w)); }
+
+	public boolean contains(long triangle) { return _table[find(triangle)] == triangle; }
+
+	@Override
+	public boolean contains(Object obj)
+	{
+		if(!(obj instanceof Triangle)) return false;
+
+		long packed = pack((Triangle) obj);
+
+		return packed != EMPTY && contains(packed);
+	}
+
+	/*
+	 * @return the packed ids of the vertices of @triangle; EMPTY if one is not a point of the graph
+	 */
+	private long pack(Triangle triangle)
+	{
+		int u = _graph.getId(triangle.getPoint1());
+		int v = _graph.getId(triangle.getPoint2());
+		int w = _graph.getId(triangle.getPoint3());
+
+		if(u < 0 || v < 0 || w < 0 || u == v || v == w || u == w) return EMPTY;
+
+		return pack(u, v, w);
+	}
+
+	/*
+	 * @return the slot holding @triangle, or the empty slot where it would go
+	 */
+	private int find(long triangle)
+	{
+		int mask = _table.length - 1;
+		int slot = hash(triangle) & mask;
+
+		while(_table[slot] != EMPTY && _table[slot] != triangle) slot = (slot + 1) & mask;
+
+		return slot;
+	}
+
+	/*
+	 * Spreads the bits of all three ids over the slot index (the finalizer of MurmurHash3).
+	 */
+	private static int hash(long key)
+	{
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+
+		return (int) key;
+	}
+
+	private void rehash() { rehash(2 * _table.length); }
+
+	private void rehash(int capacity)
+	{
+		_table = new long[capacity];
+		_positions = new int[capacity];
+
+		for(int i = 0; i < _length; i++) {
+			if(_order[i] == EMPTY) continue;
+
+			int slot = find(_order[i]);
+			_table[slot] = _order[i];
+			_positions[slot] = i;
+		}
+	}
+
+	/**
+	 * @param triangle -- a triangle as from pack
+	 * @return the triangle, made now
+	 */
+	public Triangle getTriangle(long triangle)
+	{
+		return _graph.getTriangle(first(triangle), second(triangle), third(triangle));
+	}
+
+	@Override
+	public Iterator<Triangle> iterator()
+	{
+		return new Iterator<Triangle>()
+		{
+			private int _next = skip(0);
+
+			@Override
+			public boolean hasNext() { return _next < _length; }
+
+			@Override
+			public Triangle next()
+			{
+				if(_next >= _length) throw new NoSuchElementException();
+
+				long triangle = _order[_next];
+				_next = skip(_next + 1);
+
+				return getTriangle(triangle);
+			}
+		};
+	}
+
+	/*
+	 * @return the first position from @position on holding a triangle; _length if none
+	 */
+	private int skip(int position)
+	{
+		while(position < _length && _order[position] == EMPTY) position++;
+
+		return position;
+	}
+
+	@Override
+	public int size() { return _size; }
+
+	@Override
+	public void clear()
+	{
+		Arrays.fill(_table, EMPTY);
+		_length = 0;
+		_size = 0;
+	}
+}
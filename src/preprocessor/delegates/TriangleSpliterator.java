@@ -0,0 +1,94 @@
+package preprocessor.delegates;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import preprocessor.delegates.TriangleGraph.Cursor;
+import preprocessor.delegates.TriangleGraph.TriangleMapper;
+
+/**
+ * The triangles of a TriangleGraph, produced one at a time as a stream asks for them.
+ *
+ * Nothing is found ahead of demand: the spliterator holds a Cursor into the walk, so a stream
+ * that stops early (findFirst, anyMatch, limit) does only the work up to the triangle it stops
+ * at, and results that are counted or reduced need not be kept. Triangles come in the order of
+ * TriangleGraph.forEachTriangle.
+ *
+ * A split divides the vertices left at the middle of their work (as in ParallelTriangleFinder).
+ * As an ordered spliterator must, it hands over the first half, together with the walk so far
+ * of the current vertex, and keeps the second.
+ */
+public class TriangleSpliterator<T> implements Spliterator<T>
+{
+	protected TriangleGraph _graph;
+	protected TriangleMapper<T> _mapper;
+	protected Cursor _cursor;
+
+	// Cumulative work of the vertices (TriangleGraph.cumulativeCost), shared by the splits
+	protected long[] _work;
+
+	/**
+	 * @param graph -- the graph to walk
+	 * @param mapper -- makes the result of each triangle; triangles mapped to null are skipped
+	 */
+	public TriangleSpliterator(TriangleGraph graph, TriangleMapper<T> mapper)
+	{
+		this(graph, mapper, graph.cumulativeCost(), graph.cursor(0, graph.numPoints()));
+	}
+
+	protected TriangleSpliterator(TriangleGraph graph, TriangleMapper<T> mapper, long[] work, Cursor cursor)
+	{
+		if(mapper == null) throw new NullPointerException();
+
+		_graph = graph;
+		_mapper = mapper;
+		_work = work;
+		_cursor = cursor;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action)
+	{
+		while(_cursor.next()) {
+			T result = _mapper.map(_cursor.getU(), _cursor.getV(), _cursor.getW());
+
+			if(result != null) {
+				action.accept(result);
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public Spliterator<T> trySplit()
+	{
+		int low = _cursor.getU();
+		int high = _cursor.getHigh();
+
+		if(high - low < 2) return null;
+
+		// The current vertex, perhaps partly walked, goes with the prefix
+		int middle = TriangleGraph.split(_work, low, high);
+
+		Cursor prefix = _cursor;
+		prefix.setHigh(middle);
+
+		_cursor = _graph.cursor(middle, high);
+
+		return new TriangleSpliterator<T>(_graph, _mapper, _work, prefix);
+	}
+
+	/**
+	 * @return the work (see TriangleGraph.cost) of the vertices left; it bounds the triangles left
+	 */
+	@Override
+	public long estimateSize()
+	{
+		return _work[_cursor.getHigh()] - _work[Math.min(_cursor.getU(), _cursor.getHigh())];
+	}
+
+	@Override
+	public int characteristics() { return ORDERED | NONNULL | IMMUTABLE; }
+}
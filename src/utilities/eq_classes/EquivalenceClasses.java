@@ -0,0 +1,307 @@
+package utilities.eq_classes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A partition of elements into equivalence classes (LinkedEquivalenceClass), each with a
+ * canonical element decided by a comparator.
+ *
+ * Elements are numbered 0, 1, 2, ... as they are added, and the classes are a union-find
+ * (disjoint-set forest) over those ids, with path compression and union by rank; the
+ * LinkedEquivalenceClass of each class hangs off its root. So contains is a hash lookup and
+ * classOf a near-constant find, whatever the number of classes.
+ *
+ * A new element joins a class in one of two ways:
+ *    * by key: a subclass that can name the class of an element (classKey) has it found by
+ *      a hash lookup;
+ *    * otherwise by asking each class in turn whether the element belongs.
+ * Classes may also be merged outright (union).
+ *
+ * Iteration is over the classes, in the order they were made; elements lists every element
+ * in the order added. Neither walks from member to member. The classes handed out (classOf,
+ * iteration) are read-only (see LinkedEquivalenceClass): all changes go through add, addAll,
+ * union and clear, which keep the forest and the index in step.
+ */
+public class EquivalenceClasses<T> implements Iterable<LinkedEquivalenceClass<T>>
+{
+	protected Comparator<T> _comparator;
+
+	// Each element and its id
+	protected List<T> _elements;
+	protected Map<T, Integer> _ids;
+
+	// The forest: the parent of each id (itself for a root), and the rank of each root
+	protected int[] _parent;
+	protected int[] _rank;
+
+	// The class of each root id (null for other ids), and the classes in the order made
+	protected List<LinkedEquivalenceClass<T>> _classOf;
+	protected Set<LinkedEquivalenceClass<T>> _classes;
+
+	// An id in the class of each key (see classKey)
+	protected Map<Object, Integer> _byKey;
+
+	/**
+	 * @param comparator -- orders the members of a class; the least is canonical
+	 */
+	public EquivalenceClasses(Comparator<T> comparator)
+	{
+		if(comparator == null) throw new NullPointerException();
+
+		_comparator = comparator;
+
+		_elements = new ArrayList<T>();
+		_ids = new HashMap<T, Integer>();
+		_parent = new int[16];
+		_rank = new int[16];
+		_classOf = new ArrayList<LinkedEquivalenceClass<T>>();
+		_classes = new LinkedHashSet<LinkedEquivalenceClass<T>>();
+		_byKey = new HashMap<Object, Integer>();
+	}
+
+	public Comparator<T> getComparator() { return _comparator; }
+
+	/**
+	 * @return a new, empty class; subclasses return their own kind
+	 */
+	protected LinkedEquivalenceClass<T> createClass()
+	{
+		return new LinkedEquivalenceClass<T>(_comparator);
+	}
+
+	/**
+	 * @param element -- an element
+	 * @return a key, with equals and hashCode, naming the class of @element; null (the default)
+	 *         if classes are found by LinkedEquivalenceClass.belongs instead
+	 */
+	protected Object classKey(T element)
+	{
+		return null;
+	}
+
+	/**
+	 * @param element -- an element
+	 * @return true if @element was added; false if it was null or already present
+	 */
+	public boolean add(T element)
+	{
+		if(element == null || _ids.containsKey(element)) return false;
+
+		Object key = classKey(element);
+
+		int other = key != null ? _byKey.getOrDefault(key, -1) : findByBelongs(element);
+
+		int id = newId(element);
+
+		if(other < 0) {
+			LinkedEquivalenceClass<T> cls = createClass();
+			cls.own();
+			cls.join(element);
+
+			_classOf.set(id, cls);
+			_classes.add(cls);
+
+			if(key != null) _byKey.put(key, id);
+		}
+		else {
+			// A single node goes under the root, which keeps its rank
+			int root = find(other);
+			_parent[id] = root;
+
+			_classOf.get(root).join(element);
+		}
+
+		return true;
+	}
+
+	/**
+	 * @param elements -- elements to add
+	 * @return true if any was added
+	 */
+	public boolean addAll(Collection<? extends T> elements)
+	{
+		ensureCapacity(_elements.size() + elements.size());
+
+		boolean changed = false;
+		for(T element : elements) {
+			changed |= add(element);
+		}
+
+		return changed;
+	}
+
+	/*
+	 * @return an id in the first class @element belongs to; -1 if none
+	 */
+	private int findByBelongs(T element)
+	{
+		for(LinkedEquivalenceClass<T> cls : _classes) {
+			if(cls.belongs(element)) return _ids.get(cls.canonical());
+		}
+
+		return -1;
+	}
+
+	/*
+	 * @return the id given to @element, a root of its own
+	 */
+	private int newId(T element)
+	{
+		int id = _elements.size();
+		ensureCapacity(id + 1);
+
+		_elements.add(element);
+		_ids.put(element, id);
+		_classOf.add(null);
+
+		_parent[id] = id;
+		_rank[id] = 0;
+
+		return id;
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if(capacity <= _parent.length) return;
+
+		capacity = Math.max(capacity, 2 * _parent.length);
+
+		_parent = Arrays.copyOf(_parent, capacity);
+		_rank = Arrays.copyOf(_rank, capacity);
+	}
+
+	/*
+	 * @return the root of the tree of @id; every id on the way is pointed at the root
+	 */
+	private int find(int id)
+	{
+		int root = id;
+		while(_parent[root] != root) root = _parent[root];
+
+		while(_parent[id] != root) {
+			int next = _parent[id];
+			_parent[id] = root;
+			id = next;
+		}
+
+		return root;
+	}
+
+	/**
+	 * Merges the classes of @a and @b into one.
+	 * @return true if they were different classes; false if the same, or either is absent
+	 */
+	public boolean union(T a, T b)
+	{
+		Integer idA = _ids.get(a);
+		Integer idB = _ids.get(b);
+		if(idA == null || idB == null) return false;
+
+		int rootA = find(idA);
+		int rootB = find(idB);
+		if(rootA == rootB) return false;
+
+		// The shorter tree goes under the root of the taller
+		if(_rank[rootA] < _rank[rootB]) { int t = rootA; rootA = rootB; rootB = t; }
+		if(_rank[rootA] == _rank[rootB]) _rank[rootA]++;
+
+		_parent[rootB] = rootA;
+
+		// The members of the smaller class move into the larger
+		LinkedEquivalenceClass<T> kept = _classOf.get(rootA);
+		LinkedEquivalenceClass<T> merged = _classOf.get(rootB);
+		if(kept.size() < merged.size()) { LinkedEquivalenceClass<T> t = kept; kept = merged; merged = t; }
+
+		kept.absorb(merged);
+
+		_classes.remove(merged);
+		_classOf.set(rootA, kept);
+		_classOf.set(rootB, null);
+
+		return true;
+	}
+
+	public boolean contains(T element) { return _ids.containsKey(element); }
+
+	/**
+	 * @param element -- an element
+	 * @return the class of @element; null if it is absent
+	 */
+	public LinkedEquivalenceClass<T> classOf(T element)
+	{
+		Integer id = _ids.get(element);
+
+		return id == null ? null : _classOf.get(find(id));
+	}
+
+	/**
+	 * @param element -- an element
+	 * @return the position of the class of @element in the order of iteration; -1 if it is absent
+	 */
+	public int indexOfClass(T element)
+	{
+		LinkedEquivalenceClass<T> cls = classOf(element);
+		if(cls == null) return -1;
+
+		int index = 0;
+		for(LinkedEquivalenceClass<T> other : _classes) {
+			if(other == cls) return index;
+			index++;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * @return every element, in the order added
+	 */
+	public List<T> elements() { return Collections.unmodifiableList(_elements); }
+
+	/**
+	 * @return the number of elements
+	 */
+	public int size() { return _elements.size(); }
+
+	public int numClasses() { return _classes.size(); }
+
+	public boolean isEmpty() { return _elements.isEmpty(); }
+
+	public void clear()
+	{
+		_elements.clear();
+		_ids.clear();
+		_classOf.clear();
+		_classes.clear();
+		_byKey.clear();
+	}
+
+	/**
+	 * @return the classes, in the order they were made
+	 */
+	@Override
+	public Iterator<LinkedEquivalenceClass<T>> iterator()
+	{
+		return Collections.unmodifiableSet(_classes).iterator();
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		for(LinkedEquivalenceClass<T> cls : _classes) {
+			sb.append(cls).append('\n');
+		}
+
+		return sb.toString();
+	}
+}
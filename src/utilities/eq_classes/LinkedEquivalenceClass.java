@@ -0,0 +1,235 @@
+package utilities.eq_classes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * One equivalence class: a canonical element and the rest of its members.
+ *
+ * The canonical element is the least member under the comparator, kept as members are added:
+ * a new member that compares less than (a negative result) the canonical element takes its
+ * place, so no member is ever looked at twice. Whether an element belongs at all is decided
+ * by belongs: by default, when it compares 0 to the canonical element.
+ *
+ * Members are kept in an array list, in the order they were added.
+ *
+ * A class made by an EquivalenceClasses belongs to it and is read-only: its mutators throw
+ * UnsupportedOperationException, since a change behind the back of the EquivalenceClasses
+ * would leave its index (contains, size, classOf) out of step. Change such a class through
+ * its EquivalenceClasses.
+ */
+public class LinkedEquivalenceClass<T> implements Iterable<T>
+{
+	protected T _canonical;
+	protected List<T> _rest;
+	protected Comparator<T> _comparator;
+
+	// Made by an EquivalenceClasses, and changed only by it
+	protected boolean _owned;
+
+	public LinkedEquivalenceClass(Comparator<T> comparator)
+	{
+		if(comparator == null) throw new NullPointerException();
+
+		_canonical = null;
+		_rest = new ArrayList<T>();
+		_comparator = comparator;
+		_owned = false;
+	}
+
+	/*
+	 * Hands this class to an EquivalenceClasses: from now on only it changes the class.
+	 */
+	void own() { _owned = true; }
+
+	public boolean isOwned() { return _owned; }
+
+	/*
+	 * @throws UnsupportedOperationException if an EquivalenceClasses owns this class
+	 */
+	private void checkMutable()
+	{
+		if(_owned) throw new UnsupportedOperationException("the class belongs to an EquivalenceClasses; change it through that");
+	}
+
+	public T canonical() { return _canonical; }
+
+	/**
+	 * @return the members other than the canonical element, in the order they were added
+	 */
+	public List<T> rest() { return Collections.unmodifiableList(_rest); }
+
+	public Comparator<T> getComparator() { return _comparator; }
+
+	public boolean isEmpty() { return _canonical == null; }
+
+	public int size() { return isEmpty() ? 0 : 1 + _rest.size(); }
+
+	public void clear()
+	{
+		checkMutable();
+
+		_canonical = null;
+		_rest.clear();
+	}
+
+	public void clearNonCanonical()
+	{
+		checkMutable();
+
+		_rest.clear();
+	}
+
+	/**
+	 * @param element -- an element
+	 * @return true if @element may join this class; any element may start an empty one
+	 */
+	public boolean belongs(T element)
+	{
+		if(element == null) return false;
+
+		return isEmpty() || _comparator.compare(element, _canonical) == 0;
+	}
+
+	/**
+	 * @param element -- an element
+	 * @return true if @element was added: it belongs and is not already a member
+	 */
+	public boolean add(T element)
+	{
+		checkMutable();
+
+		if(!belongs(element) || contains(element)) return false;
+
+		join(element);
+
+		return true;
+	}
+
+	/**
+	 * Adds @element without asking belongs or contains (the caller already knows), keeping
+	 * the least member canonical.
+	 */
+	protected void join(T element)
+	{
+		if(_canonical == null) {
+			_canonical = element;
+		}
+		else if(_comparator.compare(element, _canonical) < 0) {
+			_rest.add(_canonical);
+			_canonical = element;
+		}
+		else {
+			_rest.add(element);
+		}
+	}
+
+	/**
+	 * Adds the members of @that without asking belongs or contains.
+	 */
+	protected void absorb(LinkedEquivalenceClass<T> that)
+	{
+		if(that.isEmpty()) return;
+
+		join(that._canonical);
+		for(T element : that._rest) join(element);
+	}
+
+	/**
+	 * @param element -- an element
+	 * @return true if @element is a member; a scan of the members (EquivalenceClasses.contains
+	 *         is a hash lookup)
+	 */
+	public boolean contains(T element)
+	{
+		if(element == null || isEmpty()) return false;
+
+		return _canonical.equals(element) || _rest.contains(element);
+	}
+
+	/**
+	 * @param element -- a member other than the canonical element
+	 * @return true if it was removed
+	 */
+	public boolean remove(T element)
+	{
+		checkMutable();
+
+		return _rest.remove(element);
+	}
+
+	/**
+	 * Removes the canonical element; the least of the rest takes its place.
+	 * @return true if there was a canonical element to remove
+	 */
+	public boolean removeCanonical()
+	{
+		checkMutable();
+
+		if(isEmpty()) return false;
+
+		List<T> rest = new ArrayList<T>(_rest);
+
+		_canonical = null;
+		_rest.clear();
+		for(T element : rest) join(element);
+
+		return true;
+	}
+
+	/**
+	 * Makes @element canonical whatever the comparator says; the old canonical element
+	 * joins the rest.
+	 * @param element -- an element that belongs to this class
+	 * @return true if @element is now canonical
+	 */
+	public boolean demoteAndSetCanonical(T element)
+	{
+		checkMutable();
+
+		if(!belongs(element)) return false;
+
+		if(_canonical != null && !_canonical.equals(element)) {
+			_rest.remove(element);
+			_rest.add(_canonical);
+		}
+
+		_canonical = element;
+
+		return true;
+	}
+
+	/**
+	 * @return the members, canonical element first
+	 */
+	@Override
+	public Iterator<T> iterator()
+	{
+		return new Iterator<T>()
+		{
+			// -1 for the canonical element, then positions in _rest
+			private int _next = isEmpty() ? _rest.size() : -1;
+
+			@Override
+			public boolean hasNext() { return _next < _rest.size(); }
+
+			@Override
+			public T next()
+			{
+				if(!hasNext()) throw new NoSuchElementException();
+
+				return _next++ < 0 ? _canonical : _rest.get(_next - 1);
+			}
+		};
+	}
+
+	@Override
+	public String toString()
+	{
+		return "{" + _canonical + " | " + _rest + "}";
+	}
+}
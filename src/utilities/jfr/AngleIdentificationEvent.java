@@ -0,0 +1,29 @@
+package utilities.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The computation of the angles of a figure by AngleIdentifier.
+ */
+@Name("geometry.AngleIdentification")
+@Label("Angle Identification")
+@Category({"Geometry", "Identifiers"})
+public class AngleIdentificationEvent extends jdk.jfr.Event
+{
+	@Label("Figure")
+	public String figure;
+
+	@Label("Points")
+	public int points;
+
+	@Label("Segments")
+	public int segments;
+
+	@Label("Angles")
+	public int angles;
+
+	@Label("Classes")
+	public int classes;
+}
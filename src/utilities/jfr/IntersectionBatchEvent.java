@@ -0,0 +1,35 @@
+package utilities.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A batch of segment intersection tests during implicit point discovery: the whole
+ * candidate list of a sequential run, or the range of one parallel task.
+ */
+@Name("geometry.IntersectionBatch")
+@Label("Intersection Batch")
+@Category({"Geometry", "Preprocessor"})
+@Description("A batch of segment intersection tests")
+public class IntersectionBatchEvent extends jdk.jfr.Event
+{
+	@Label("Strategy")
+	@Description("How the pairs were chosen; a parallel task reports ALL_PAIRS or CANDIDATES")
+	public String strategy;
+
+	@Label("Parallel")
+	public boolean parallel;
+
+	@Label("Segments")
+	public int segments;
+
+	@Label("Tests")
+	@Description("Ordered pairs of segments intersected")
+	public long tests;
+
+	@Label("Crossings")
+	@Description("Tests that found a crossing in the middle of both segments")
+	public long crossings;
+}
@@ -0,0 +1,29 @@
+package utilities.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One call of JSONParser.parse.
+ */
+@Name("geometry.JSONParse")
+@Label("JSON Parse")
+@Category({"Geometry", "Input"})
+public class JSONParseEvent extends jdk.jfr.Event
+{
+	@Label("Figure")
+	public String figure;
+
+	@Label("Points")
+	public int points;
+
+	@Label("Segments")
+	@Description("Entries of the adjacency lists")
+	public int segments;
+
+	@Label("Length")
+	@Description("Characters of JSON parsed")
+	public int length;
+}
@@ -0,0 +1,34 @@
+package utilities.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One stage of Preprocessor.analyze (see PreprocessorMetrics.Stage).
+ */
+@Name("geometry.PreprocessStage")
+@Label("Preprocess Stage")
+@Category({"Geometry", "Preprocessor"})
+@Description("A stage of preprocessing a figure")
+public class PreprocessStageEvent extends jdk.jfr.Event
+{
+	@Label("Figure")
+	public String figure;
+
+	@Label("Stage")
+	public String stage;
+
+	@Label("Points")
+	@Description("Points of the figure when the stage ended")
+	public int points;
+
+	@Label("Segments")
+	@Description("Given segments of the figure")
+	public int segments;
+
+	@Label("Produced")
+	@Description("Points or segments the stage produced")
+	public long produced;
+}
@@ -0,0 +1,29 @@
+package utilities.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The computation of the triangles of a figure by TriangleIdentifier.
+ */
+@Name("geometry.TriangleIdentification")
+@Label("Triangle Identification")
+@Category({"Geometry", "Identifiers"})
+public class TriangleIdentificationEvent extends jdk.jfr.Event
+{
+	@Label("Figure")
+	public String figure;
+
+	@Label("Parallel")
+	public boolean parallel;
+
+	@Label("Points")
+	public int points;
+
+	@Label("Segments")
+	public int segments;
+
+	@Label("Triangles")
+	public int triangles;
+}
@@ -29,4 +29,16 @@ public class MathUtilities
     	int value = (int)(x * Math.pow(10, EPSILON_POWER - 1));
     	return value / Math.pow(10, EPSILON_POWER - 1);
     }
+
+    /**
+     * Snaps x to the epsilon grid: values within round-off of one another land on
+     * the same multiple of epsilon.
+     * 
+     * @param x
+     * @return x / epsilon rounded to the nearest long
+     */
+    public static long quantize(double x)
+    {
+        return Math.round(x / EPSILON);
+    }
 }
@@ -0,0 +1,84 @@
+package utilities.math.analytic_geometry;
+
+import geometry_objects.points.Point;
+
+/**
+ * The direction of a ray in a canonical form, usable as a hash key: the line the ray lies on
+ * (LineKey) and which way along it the ray points.
+ *
+ * The way is taken against the direction (b, -a) of the line's canonical normal (a, b), so
+ * two rays from one point have equal keys exactly when they lie on the same line (as
+ * LineKey decides it) and point the same way: when one overlays the other.
+ *
+ * Keys are ordered (by line, then way) only so that a pair of them can be put in a canonical
+ * order; the order means nothing geometrically.
+ */
+public class DirectionKey implements Comparable<DirectionKey>
+{
+    protected final LineKey _line;
+    protected final boolean _forward;
+
+    protected DirectionKey(LineKey line, boolean forward)
+    {
+        _line = line;
+        _forward = forward;
+    }
+
+    /**
+     * @param line -- the key of the line through @from and @to
+     * @param from -- the origin of a ray
+     * @param to -- another point of the ray
+     * @return the key of the direction of the ray from @from through @to; null if @line is null
+     */
+    public static DirectionKey of(LineKey line, Point from, Point to)
+    {
+        if (line == null) return null;
+
+        double along = (to.getX() - from.getX()) * line._b - (to.getY() - from.getY()) * line._a;
+
+        return new DirectionKey(line, along > 0);
+    }
+
+    /**
+     * @param from -- the origin of a ray
+     * @param to -- another point of the ray
+     * @return the key of the direction of the ray from @from through @to; null if the points coincide
+     */
+    public static DirectionKey of(Point from, Point to)
+    {
+        return of(LineKey.of(from, to), from, to);
+    }
+
+    public LineKey getLine() { return _line; }
+
+    @Override
+    public int compareTo(DirectionKey that)
+    {
+        if (_line._a != that._line._a) return Long.compare(_line._a, that._line._a);
+        if (_line._b != that._line._b) return Long.compare(_line._b, that._line._b);
+        if (_line._c != that._line._c) return Long.compare(_line._c, that._line._c);
+
+        return Boolean.compare(_forward, that._forward);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (!(obj instanceof DirectionKey)) return false;
+
+        DirectionKey that = (DirectionKey) obj;
+        return _forward == that._forward && _line.equals(that._line);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * _line.hashCode() + (_forward ? 1 : 0);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DirectionKey(" + _line + (_forward ? ", +)" : ", -)");
+    }
+}
@@ -13,8 +13,19 @@ public class GeometryUtilities
      */
     public static double distance(Point p1, Point p2)
     {
-        return Math.sqrt(Math.pow(p2.getX() - p1.getX(), 2) +
-                         Math.pow(p2.getY() - p1.getY(), 2));
+        return distance(p1.getX(), p1.getY(), p2.getX(), p2.getY());
+    }
+
+    /**
+     * Calculates the distance between 2 points given by their coordinates
+     * @return The distance between (x1, y1) and (x2, y2)
+     */
+    public static double distance(double x1, double y1, double x2, double y2)
+    {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+
+        return Math.sqrt(dx * dx + dy * dy);
     }
     
 	/*
@@ -27,9 +38,18 @@ public class GeometryUtilities
 	 */
 	public static boolean between(Point M, Point A, Point B)
 	{
-		return MathUtilities.doubleEquals(GeometryUtilities.distance(A, M) +
-                                          GeometryUtilities.distance(M, B),
-                                          GeometryUtilities.distance(A, B));
+		return between(M.getX(), M.getY(), A.getX(), A.getY(), B.getX(), B.getY());
+	}
+
+	/*
+	 * between() on raw coordinates: is (mx, my) on the segment from (ax, ay) to (bx, by)?
+	 * Note: returns true if M is one of the endpoints
+	 */
+	public static boolean between(double mx, double my, double ax, double ay, double bx, double by)
+	{
+		return MathUtilities.doubleEquals(GeometryUtilities.distance(ax, ay, mx, my) +
+                                          GeometryUtilities.distance(mx, my, bx, by),
+                                          GeometryUtilities.distance(ax, ay, bx, by));
 	}
     
     /*
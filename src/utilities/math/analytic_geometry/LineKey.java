@@ -0,0 +1,89 @@
+package utilities.math.analytic_geometry;
+
+import geometry_objects.points.Point;
+import utilities.math.MathUtilities;
+
+/**
+ * The (infinite) line through two points in a canonical form, usable as a hash key.
+ *
+ *     ax + by = c
+ *
+ * (a, b) is the unit normal of the line, signed so that a > 0, or a = 0 and b > 0; c is then
+ * the signed distance of the line from the origin. All three are snapped to the epsilon grid
+ * (MathUtilities.quantize), so any two points of a line give the same key: segments are
+ * collinear exactly when their keys are equal. Parallel lines differ in c.
+ */
+public class LineKey
+{
+    protected final long _a;
+    protected final long _b;
+    protected final long _c;
+
+    protected LineKey(long a, long b, long c)
+    {
+        _a = a;
+        _b = b;
+        _c = c;
+    }
+
+    /**
+     * @param p1 -- a point
+     * @param p2 -- a point
+     * @return the key of the line through both points; null if the points coincide
+     */
+    public static LineKey of(Point p1, Point p2)
+    {
+        if (p1.equals(p2)) return null;
+
+        return of(p1.getX(), p1.getY(), p2.getX(), p2.getY());
+    }
+
+    /**
+     * @return the key of the line through (x1, y1) and (x2, y2); null if the points coincide
+     */
+    public static LineKey of(double x1, double y1, double x2, double y2)
+    {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if (length == 0) return null;
+
+        double a = -dy / length;
+        double b = dx / length;
+
+        // Canonical direction of the normal, decided on the grid so that nearly
+        // axis-parallel lines do not flip with round-off
+        long qa = MathUtilities.quantize(a);
+        if (qa < 0 || (qa == 0 && MathUtilities.quantize(b) < 0))
+        {
+            a = -a;
+            b = -b;
+        }
+
+        return new LineKey(MathUtilities.quantize(a),
+                           MathUtilities.quantize(b),
+                           MathUtilities.quantize(a * x1 + b * y1));
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (!(obj instanceof LineKey)) return false;
+
+        LineKey that = (LineKey) obj;
+        return _a == that._a && _b == that._b && _c == that._c;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Long.hashCode((_a * 0x9E3779B97F4A7C15L + _b) * 0x9E3779B97F4A7C15L + _c);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LineKey(" + _a + ", " + _b + ", " + _c + ")";
+    }
+}
@@ -0,0 +1,106 @@
+package geometry_objects.angle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import exceptions.FactException;
+import geometry_objects.Segment;
+import geometry_objects.points.Point;
+
+class AngleLinkedEquivalenceClassTest
+{
+	//    G-----A-------B----C-----------D
+	//           \
+	//            \
+	//             E
+	//              \
+	//               F
+	//
+	private static final Point A = new Point("A", 0, 0);
+	private static final Point B = new Point("B", 4, 0);
+	private static final Point C = new Point("C", 6, 0);
+	private static final Point D = new Point("D", 12, 0);
+	private static final Point E = new Point("E", 2, -2);
+	private static final Point F = new Point("F", 4, -4);
+	private static final Point G = new Point("G", -3, 0);
+
+	private static Angle angle(Point end1, Point vertex, Point end2) throws FactException
+	{
+		return new Angle(new Segment(vertex, end1), new Segment(vertex, end2));
+	}
+
+	@Test
+	void test_belongs() throws FactException
+	{
+		AngleLinkedEquivalenceClass cls = new AngleLinkedEquivalenceClass();
+
+		assertTrue(cls.belongs(angle(C, A, E)));
+		assertFalse(cls.belongs(null));
+
+		assertTrue(cls.add(angle(C, A, E)));
+
+		// Same key, whatever the ray lengths, even when the comparator is inconclusive
+		assertTrue(cls.belongs(angle(D, A, F)));
+		assertTrue(cls.belongs(angle(B, A, F)));
+		assertTrue(cls.belongs(angle(F, A, B)));
+
+		// Other keys
+		assertFalse(cls.belongs(angle(G, A, E)));
+		assertFalse(cls.belongs(angle(G, A, B)));
+		assertFalse(cls.belongs(angle(A, B, E)));
+		assertFalse(cls.add(angle(G, A, E)));
+
+		assertEquals(1, cls.size());
+	}
+
+	@Test
+	void test_canonical() throws FactException
+	{
+		Angle bae = angle(B, A, E);
+		Angle baf = angle(B, A, F);
+		Angle cae = angle(C, A, E);
+		Angle daf = angle(D, A, F);
+
+		// The structurally smallest angle ends up canonical whatever order the angles come in
+		List<List<Angle>> orders = Arrays.asList(Arrays.asList(daf, cae, baf, bae),
+				Arrays.asList(bae, daf, cae, baf),
+				Arrays.asList(baf, cae, bae, daf),
+				Arrays.asList(cae, baf, daf, bae));
+
+		for (List<Angle> order : orders) {
+			AngleLinkedEquivalenceClass cls = new AngleLinkedEquivalenceClass();
+			for (Angle angle : order) assertTrue(cls.add(angle));
+
+			assertSame(bae, cls.canonical());
+			assertEquals(4, cls.size());
+			assertFalse(cls.rest().contains(bae));
+		}
+
+		// Inconclusive against the canonical angle: the first one added stays
+		AngleLinkedEquivalenceClass cls = new AngleLinkedEquivalenceClass();
+		cls.add(cae);
+		cls.add(baf);
+		assertSame(cae, cls.canonical());
+
+		// Then one smaller than both takes over; the old canonical angle joins the rest
+		cls.add(bae);
+		assertSame(bae, cls.canonical());
+		assertEquals(Arrays.asList(baf, cae), cls.rest());
+	}
+
+	@Test
+	void test_classes() throws FactException
+	{
+		AngleEquivalenceClasses classes = new AngleEquivalenceClasses();
+
+		classes.addAll(Arrays.asList(angle(D, A, F), angle(G, A, E), angle(C, A, E), angle(B, A, E), angle(G, A, F)));
+
+		assertEquals(2, classes.numClasses());
+		assertEquals(angle(B, A, E), classes.classOf(angle(D, A, F)).canonical());
+		assertEquals(angle(G, A, E), classes.classOf(angle(G, A, F)).canonical());
+	}
+}
@@ -0,0 +1,90 @@
+package geometry_objects.angle.comparators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import exceptions.FactException;
+import geometry_objects.Segment;
+import geometry_objects.angle.Angle;
+import geometry_objects.points.Point;
+
+class AngleStructureComparatorTest
+{
+	//    G-----A-------B----C-----------D
+	//           \
+	//            \
+	//             E
+	//              \
+	//               F
+	//
+	// G is on the far side of A from B, D
+	//
+	private static final Point A = new Point("A", 0, 0);
+	private static final Point B = new Point("B", 4, 0);
+	private static final Point C = new Point("C", 6, 0);
+	private static final Point D = new Point("D", 12, 0);
+	private static final Point E = new Point("E", 2, -2);
+	private static final Point F = new Point("F", 4, -4);
+	private static final Point G = new Point("G", -3, 0);
+
+	private static final AngleStructureComparator COMPARATOR = new AngleStructureComparator();
+
+	private static Angle angle(Point end1, Point vertex, Point end2) throws FactException
+	{
+		return new Angle(new Segment(vertex, end1), new Segment(vertex, end2));
+	}
+
+	@Test
+	void test_both_rays_shorter() throws FactException
+	{
+		assertEquals(-1, COMPARATOR.compare(angle(B, A, E), angle(D, A, F)));
+		assertEquals(1, COMPARATOR.compare(angle(D, A, F), angle(B, A, E)));
+
+		// Whichever way round the rays are given
+		assertEquals(-1, COMPARATOR.compare(angle(E, A, B), angle(D, A, F)));
+		assertEquals(1, COMPARATOR.compare(angle(F, A, D), angle(B, A, E)));
+	}
+
+	@Test
+	void test_one_ray_tied() throws FactException
+	{
+		assertEquals(-1, COMPARATOR.compare(angle(B, A, E), angle(C, A, E)));
+		assertEquals(1, COMPARATOR.compare(angle(C, A, E), angle(B, A, E)));
+
+		assertEquals(-1, COMPARATOR.compare(angle(B, A, E), angle(B, A, F)));
+		assertEquals(1, COMPARATOR.compare(angle(F, A, B), angle(E, A, B)));
+	}
+
+	@Test
+	void test_same_angle() throws FactException
+	{
+		assertEquals(0, COMPARATOR.compare(angle(B, A, E), angle(E, A, B)));
+	}
+
+	@Test
+	void test_rays_disagree() throws FactException
+	{
+		// One ray shorter, the other longer: inconclusive
+		assertEquals(0, COMPARATOR.compare(angle(C, A, E), angle(B, A, F)));
+		assertEquals(0, COMPARATOR.compare(angle(B, A, F), angle(C, A, E)));
+		assertEquals(0, COMPARATOR.compare(angle(D, A, E), angle(B, A, F)));
+	}
+
+	@Test
+	void test_different_keys() throws FactException
+	{
+		// A ray the opposite way along the same line
+		assertEquals(AngleStructureComparator.STRUCTURALLY_INCOMPARABLE, COMPARATOR.compare(angle(G, A, E), angle(B, A, E)));
+		assertEquals(AngleStructureComparator.STRUCTURALLY_INCOMPARABLE, COMPARATOR.compare(angle(B, A, E), angle(G, A, F)));
+
+		// Another vertex
+		assertEquals(AngleStructureComparator.STRUCTURALLY_INCOMPARABLE, COMPARATOR.compare(angle(A, B, E), angle(B, A, E)));
+
+		// Another pair of lines through the vertex
+		assertEquals(AngleStructureComparator.STRUCTURALLY_INCOMPARABLE, COMPARATOR.compare(angle(G, A, B), angle(B, A, E)));
+
+		assertEquals(AngleStructureComparator.STRUCTURALLY_INCOMPARABLE, COMPARATOR.compare(null, angle(B, A, E)));
+		assertEquals(AngleStructureComparator.STRUCTURALLY_INCOMPARABLE, COMPARATOR.compare(angle(B, A, E), null));
+	}
+}
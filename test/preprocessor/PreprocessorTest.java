@@ -3,15 +3,27 @@ package preprocessor;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import components.FigureNode;
 import geometry_objects.Segment;
@@ -347,6 +359,213 @@ class PreprocessorTest
 		assertFalse(nonMinimal.contains(new Segment(points.getPoint("D"), points.getPoint("E"))));
 	}
 
+	@Test
+	void longCollinearRunTest() throws NotInDatabaseException {
+		PointDatabase points = new PointDatabase();
+
+		int n = 400;
+		for(int i = 0; i < n; i++) {
+			points.put("P" + i, i, 2 * i);
+		}
+
+		Set<Segment> segments = new HashSet<>();
+		for(int i = 0; i + 1 < n; i++) {
+			segments.add(new Segment(points.getPoint("P" + i), points.getPoint("P" + (i + 1))));
+		}
+
+		Preprocessor pp = new Preprocessor(points, segments);
+
+		//every pair of points but the minimal segments
+		Set<Segment> nonMinimal = pp.constructAllNonMinimalSegments(segments);
+		assertEquals(n * (n - 1) / 2 - (n - 1), nonMinimal.size());
+
+		assertTrue(nonMinimal.contains(new Segment(points.getPoint("P0"), points.getPoint("P" + (n - 1)))));
+		assertFalse(nonMinimal.contains(new Segment(points.getPoint("P7"), points.getPoint("P8"))));
+	}
+
+	@Test
+	void segmentDatabaseViewTest() throws NotInDatabaseException {
+		PointDatabase points = new PointDatabase();
+
+		int n = 200;
+		for(int i = 0; i < n; i++) {
+			points.put("P" + i, 3 * i, i);
+		}
+		points.put("Q", 0, 5);
+
+		Set<Segment> segments = new HashSet<>();
+		for(int i = 0; i + 1 < n; i++) {
+			segments.add(new Segment(points.getPoint("P" + i), points.getPoint("P" + (i + 1))));
+		}
+		segments.add(new Segment(points.getPoint("P0"), points.getPoint("Q")));
+
+		Preprocessor pp = new Preprocessor(points, segments);
+
+		Map<Segment, Segment> all = pp.getAllSegments();
+
+		//every pair of points on the line, and the one segment off it
+		assertEquals(n * (n - 1) / 2 + 1, all.size());
+		assertEquals(all.size(), new HashSet<>(all.keySet()).size());
+
+		Segment longest = new Segment(points.getPoint("P" + (n - 1)), points.getPoint("P0"));
+		assertTrue(all.containsKey(longest));
+		assertEquals(longest, all.get(longest));
+
+		//one object per segment, however it is reached
+		assertSame(all.get(longest), all.get(longest));
+		for(Segment segment : all.keySet()) {
+			assertSame(segment, all.get(new Segment(segment.getPoint2(), segment.getPoint1())));
+		}
+
+		assertTrue(all.containsKey(new Segment(points.getPoint("Q"), points.getPoint("P0"))));
+		assertFalse(all.containsKey(new Segment(points.getPoint("Q"), points.getPoint("P1"))));
+
+		assertThrows(UnsupportedOperationException.class, () -> {all.put(longest, longest);});
+
+		//a lookup with unnamed copies of the points answers with the figure's own points
+		Preprocessor fresh = new Preprocessor(points, segments);
+		Map<Segment, Segment> view = fresh.getAllSegments();
+
+		Segment found = view.get(new Segment(new Point(3 * (n - 1), n - 1), new Point(3, 1)));
+		assertEquals("P1", found.getPoint1().getName());
+		assertEquals("P" + (n - 1), found.getPoint2().getName());
+
+		for(Segment segment : view.keySet()) {
+			assertFalse(segment.getPoint1().isUnnamed());
+			assertFalse(segment.getPoint2().isUnnamed());
+			assertSame(points.getPoint(segment.getPoint1().getName()), segment.getPoint1());
+			assertSame(points.getPoint(segment.getPoint2().getName()), segment.getPoint2());
+		}
+	}
+
+	@Test
+	void metricsTest() throws Exception {
+		PointDatabase points = new PointDatabase();
+		points.put("A", 0, 0);
+		points.put("B", 4, 4);
+		points.put("C", 0, 4);
+		points.put("D", 4, 0);
+
+		Set<Segment> segments = new HashSet<>();
+		segments.add(new Segment(points.getPoint("A"), points.getPoint("B")));
+		segments.add(new Segment(points.getPoint("C"), points.getPoint("D")));
+
+		Preprocessor pp = new Preprocessor(points, segments);
+		PreprocessorMetrics metrics = pp.getMetrics();
+
+		//one crossing, found from both orderings of the pair
+		assertEquals(2, metrics.getIntersectionTests());
+		assertEquals(2, metrics.getCrossings());
+		assertEquals(1.0, metrics.getHitRate());
+		assertEquals(2, metrics.getIncidences());
+
+		assertEquals(1, metrics.getImplicitPoints());
+		assertEquals(4, metrics.getImplicitSegments());
+		assertEquals(4, metrics.getMinimalSegments());
+		assertEquals(2, metrics.getNonMinimalSegments());
+		assertEquals(1, metrics.getMaxPointsOnSegment());
+		assertEquals(3, metrics.getLongestChain());
+		assertTrue(metrics.getTotalNanos() >= metrics.getImplicitPointsNanos());
+
+		//a published run is served over JMX, unchanged by later runs
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		PreprocessorMetricsPublisher publisher = new PreprocessorMetricsPublisher();
+		publisher.register(server);
+		publisher.publish(new PreprocessorMetrics(metrics));
+
+		pp.analyze();
+		assertEquals(4, server.getAttribute(new ObjectName(PreprocessorMetrics.OBJECT_NAME), "MinimalSegments"));
+		assertEquals(2L, server.getAttribute(new ObjectName(PreprocessorMetrics.OBJECT_NAME), "NonMinimalSegments"));
+	}
+
+	@Test
+	void snapshotTest(@TempDir Path directory) throws NotInDatabaseException {
+		PreprocessorCache cache = new PreprocessorCache(directory.resolve("cache"));
+
+		//analyzed, saved, then loaded for a second copy of the same figure
+		PointDatabase coldPoints = crossingPoints();
+		Set<Segment> coldSegments = crossingSegments(coldPoints);
+		assertFalse(cache.contains(coldPoints, coldSegments));
+		Preprocessor cold = cache.preprocess(coldPoints, coldSegments, "crossing");
+
+		PointDatabase warmPoints = crossingPoints();
+		Set<Segment> warmSegments = crossingSegments(warmPoints);
+		assertTrue(cache.contains(warmPoints, warmSegments));
+		Preprocessor warm = cache.preprocess(warmPoints, warmSegments, "crossing");
+
+		//same points, generated names and order
+		assertEquals(coldPoints.getPoints().toString(), warmPoints.getPoints().toString());
+		assertEquals(cold._implicitPoints.toString(), warm._implicitPoints.toString());
+		assertEquals(cold._allMinimalSegments, warm._allMinimalSegments);
+		assertEquals(new HashSet<>(cold.getAllSegments().keySet()), new HashSet<>(warm.getAllSegments().keySet()));
+
+		//the given segments themselves are minimal where they were
+		for(Segment segment: warmSegments) {
+			assertEquals(cold._allMinimalSegments.contains(segment), warm._allMinimalSegments.contains(segment));
+		}
+
+		//names keep being generated where the analysis left off
+		coldPoints.put(new Point(10, 10));
+		warmPoints.put(new Point(10, 10));
+		assertEquals(coldPoints.getPoints().toString(), warmPoints.getPoints().toString());
+
+		//the same figure with its segments given in another order may name its points
+		//differently, so it misses
+		PointDatabase reorderedPoints = crossingPoints();
+		List<Segment> reversed = new ArrayList<>(crossingSegments(reorderedPoints));
+		Collections.reverse(reversed);
+		assertFalse(cache.contains(reorderedPoints, new LinkedHashSet<>(reversed)));
+
+		//another figure misses
+		PointDatabase otherPoints = crossingPoints();
+		otherPoints.put("E", 5, 5);
+		assertFalse(cache.contains(otherPoints, crossingSegments(otherPoints)));
+	}
+
+	@Test
+	void damagedSnapshotTest(@TempDir Path directory) throws Exception {
+		PointDatabase points = crossingPoints();
+		Set<Segment> segments = crossingSegments(points);
+		PreprocessorSnapshot snapshot = new PreprocessorSnapshot(points, segments);
+		Preprocessor cold = new Preprocessor(points, segments);
+
+		Path file = directory.resolve("crossing.snapshot");
+		snapshot.write(cold, file);
+
+		//only the snapshot is left behind
+		try(Stream<Path> files = Files.list(directory)) {
+			assertEquals(List.of(file), files.toList());
+		}
+
+		//one flipped byte of the body is caught
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[bytes.length / 2] ^= 1;
+		Files.write(file, bytes);
+
+		PointDatabase warmPoints = crossingPoints();
+		PreprocessorSnapshot warm = new PreprocessorSnapshot(warmPoints, crossingSegments(warmPoints));
+		assertThrows(IOException.class, () -> {warm.read(file, "crossing");});
+	}
+
+	private PointDatabase crossingPoints() {
+		PointDatabase points = new PointDatabase();
+		points.put("A", 0, 0);
+		points.put("B", 4, 4);
+		points.put("C", 0, 4);
+		points.put("D", 4, 0);
+
+		return points;
+	}
+
+	private Set<Segment> crossingSegments(PointDatabase points) {
+		Set<Segment> segments = new LinkedHashSet<>();
+		segments.add(new Segment(points.getPoint("A"), points.getPoint("B")));
+		segments.add(new Segment(points.getPoint("C"), points.getPoint("D")));
+		segments.add(new Segment(points.getPoint("A"), points.getPoint("C")));
+
+		return segments;
+	}
+
 	@Test
 	void test_arrow_pointing_right() throws NotInDatabaseException
 	{
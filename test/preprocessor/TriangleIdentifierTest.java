@@ -4,9 +4,12 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
 
@@ -15,8 +18,11 @@ import geometry_objects.Segment;
 import geometry_objects.Triangle;
 import geometry_objects.points.Point;
 import geometry_objects.points.PointDatabase;
-import input.components.FigureNode;
+import components.FigureNode;
 import input.InputFacade;
+import input.components.exception.NotInDatabaseException;
+import preprocessor.delegates.TriangleGraph;
+import preprocessor.delegates.TriangleGraph.Cursor;
 
 class TriangleIdentifierTest
 {
@@ -24,7 +30,7 @@ class TriangleIdentifierTest
 	protected Preprocessor _pp;
 	protected Map<Segment, Segment> _segments;
 	
-	protected void init(String filename)
+	protected void init(String filename) throws NotInDatabaseException
 	{
 		FigureNode fig = InputFacade.extractFigure("crossing_symmetric_triangle.json");
 
@@ -49,7 +55,7 @@ class TriangleIdentifierTest
 	// This figure contains 12 triangles
 	//
 	@Test
-	void test_crossing_symmetric_triangle()
+	void test_crossing_symmetric_triangle() throws NotInDatabaseException
 	{
 		init("crossing_symmetric_triangle.json");
 
@@ -122,4 +128,181 @@ class TriangleIdentifierTest
 			assertTrue(expectedTriangles.contains(computedTriangle));
 		}
 	}
+
+	@Test
+	void test_stream() throws NotInDatabaseException
+	{
+		init("crossing_symmetric_triangle.json");
+
+		List<Triangle> streamed = new TriangleIdentifier(_segments).stream().collect(Collectors.toList());
+		List<Triangle> parallel = new TriangleIdentifier(_segments).stream().parallel().collect(Collectors.toList());
+		List<Triangle> computed = new ArrayList<Triangle>(new TriangleIdentifier(_segments).getTriangles());
+
+		// Same triangles, same order
+		assertEquals(12, streamed.size());
+		assertEquals(computed.toString(), streamed.toString());
+		assertEquals(computed.toString(), parallel.toString());
+
+		Point a = _points.getPoint("A");
+		assertEquals(4, new TriangleIdentifier(_segments).stream().filter(t -> t.has(a)).count());
+		assertTrue(new TriangleIdentifier(_segments).stream().anyMatch(t -> t.has(a)));
+		assertEquals(5, new TriangleIdentifier(_segments).stream().limit(5).count());
+	}
+
+	@Test
+	void test_count() throws NotInDatabaseException
+	{
+		init("crossing_symmetric_triangle.json");
+
+		TriangleCount count = new TriangleIdentifier(_segments).countTriangles();
+
+		assertEquals(12, count.getTotal());
+		assertEquals(6, count.numPoints());
+
+		int vertices = 0;
+		for (int n : count.getHistogram()) vertices += n;
+		assertEquals(3 * 12, vertices);
+
+		assertEquals(4, count.getCount(_points.getPoint("A")));
+		assertEquals(4, count.getCount(_points.getPoint(3, 3)));
+		assertEquals(0, count.getCount(new Point(100, 100)));
+	}
+
+	@Test
+	void test_triangle_set() throws FactException, NotInDatabaseException
+	{
+		init("crossing_symmetric_triangle.json");
+
+		Set<Triangle> computedTriangles = new TriangleIdentifier(_segments).getTriangles();
+
+		// Looked up by the points of a triangle, whatever its objects
+		Point a = new Point(_points.getPoint("A").getX(), _points.getPoint("A").getY());
+		Point b = _points.getPoint("B");
+		Point c = _points.getPoint("C");
+		Point x = _points.getPoint(3, 3);
+
+		assertTrue(computedTriangles.contains(new Triangle(Arrays.asList(new Segment(a, b), new Segment(b, c), new Segment(a, c)))));
+		assertFalse(computedTriangles.contains(new Triangle(Arrays.asList(new Segment(a, b), new Segment(b, x), new Segment(a, x)))));
+		assertFalse(computedTriangles.contains(b));
+
+		// Adding a triangle already found changes nothing
+		assertFalse(computedTriangles.add(new Triangle(Arrays.asList(new Segment(b, c), new Segment(c, a), new Segment(a, b)))));
+		assertEquals(12, computedTriangles.size());
+	}
+
+	@Test
+	void test_update() throws NotInDatabaseException
+	{
+		init("crossing_symmetric_triangle.json");
+
+		// An editable copy of the segment database
+		Map<Segment, Segment> segments = new LinkedHashMap<Segment, Segment>(_segments);
+
+		TriangleIdentifier triIdentifier = new TriangleIdentifier(segments);
+		assertEquals(12, triIdentifier.getTriangles().size());
+
+		// Without BC: ABC, BCX, BCD and BCE are gone
+		Segment bc = _segments.get(new Segment(_points.getPoint("B"), _points.getPoint("C")));
+		segments.remove(bc);
+		triIdentifier.update(List.of(), List.of(bc));
+
+		assertEquals(8, triIdentifier.getTriangles().size());
+		assertEquals(new TriangleIdentifier(segments).getTriangles(), triIdentifier.getTriangles());
+
+		// A new point F above A, joined to A and B, closes FAB
+		Point f = new Point("F", 3, 10);
+		Segment af = new Segment(_points.getPoint("A"), f);
+		Segment bf = new Segment(_points.getPoint("B"), f);
+		segments.put(bc, bc);
+		segments.put(af, af);
+		segments.put(bf, bf);
+		triIdentifier.update(List.of(bc, af, bf), List.of());
+
+		assertEquals(13, triIdentifier.getTriangles().size());
+		assertEquals(new TriangleIdentifier(segments).getTriangles(), triIdentifier.getTriangles());
+	}
+
+	@Test
+	void test_graph_modes() throws NotInDatabaseException
+	{
+		init("crossing_symmetric_triangle.json");
+
+		List<Map<Segment, Segment>> figures = List.of(_segments, circle(40, 40), circle(200, 12));
+
+		for (Map<Segment, Segment> figure : figures) {
+			TriangleGraph sparse = new TriangleGraph(figure.keySet(), false);
+			TriangleGraph dense = new TriangleGraph(figure.keySet(), true);
+
+			assertFalse(sparse.isDense());
+			assertTrue(dense.isDense());
+
+			// Same triangles, in the same order, both walked at once and by cursor
+			List<List<Integer>> expected = walk(sparse);
+			assertFalse(expected.isEmpty());
+			assertEquals(expected, walk(dense));
+			assertEquals(expected, walkByCursor(sparse));
+			assertEquals(expected, walkByCursor(dense));
+
+			assertEquals(expected.size(), sparse.countTriangles(new int[sparse.numPoints()]));
+			assertEquals(expected.size(), dense.countTriangles(new int[dense.numPoints()]));
+		}
+	}
+
+	@Test
+	void test_parallel() throws NotInDatabaseException
+	{
+		// Enough work that the finder splits into several tasks (1 << 14 each at most)
+		Map<Segment, Segment> segments = circle(300, 30);
+		TriangleGraph graph = new TriangleGraph(segments.keySet());
+		assertTrue(graph.cumulativeCost()[graph.numPoints()] > 2 * (1 << 14));
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		List<Triangle> parallel = new ArrayList<Triangle>(new TriangleIdentifier(segments, "circle", pool).getTriangles());
+		pool.shutdown();
+
+		List<Triangle> sequential = new ArrayList<Triangle>(new TriangleIdentifier(segments).getTriangles());
+
+		// Same triangles, same order
+		assertEquals(300 * 29 * 30 / 2, sequential.size());
+		assertEquals(sequential, parallel);
+	}
+
+	private static List<List<Integer>> walk(TriangleGraph graph)
+	{
+		List<List<Integer>> triangles = new ArrayList<List<Integer>>();
+		graph.forEachTriangle((u, v, w) -> triangles.add(List.of(u, v, w)));
+
+		return triangles;
+	}
+
+	private static List<List<Integer>> walkByCursor(TriangleGraph graph)
+	{
+		List<List<Integer>> triangles = new ArrayList<List<Integer>>();
+		for (Cursor cursor = graph.cursor(0, graph.numPoints()); cursor.next(); ) {
+			triangles.add(List.of(cursor.getU(), cursor.getV(), cursor.getW()));
+		}
+
+		return triangles;
+	}
+
+	/*
+	 * @return @n points around a circle (no three on a line), each joined to the next @reach
+	 */
+	private static Map<Segment, Segment> circle(int n, int reach)
+	{
+		Point[] points = new Point[n];
+		for (int i = 0; i < n; i++) {
+			points[i] = new Point("P" + i, 100 * Math.cos(2 * Math.PI * i / n), 100 * Math.sin(2 * Math.PI * i / n));
+		}
+
+		Map<Segment, Segment> segments = new LinkedHashMap<Segment, Segment>();
+		for (int i = 0; i < n; i++) {
+			for (int k = 1; k <= reach && k < n; k++) {
+				Segment segment = new Segment(points[i], points[(i + k) % n]);
+				segments.putIfAbsent(segment, segment);
+			}
+		}
+
+		return segments;
+	}
 }
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.Test;
 
@@ -12,6 +13,9 @@ import geometry_objects.points.Point;
 import geometry_objects.points.PointDatabase;
 import input.components.exception.NotInDatabaseException;
 import preprocessor.delegates.ImplicitPointPreprocessor;
+import preprocessor.delegates.ImplicitPoints;
+import preprocessor.delegates.SegmentGrid;
+import preprocessor.delegates.SegmentPairs;
 
 /**
  * @author Jackson Tedesco, Case Riddle
@@ -102,4 +106,140 @@ class testImpPointPreprocesser {
 		assertEquals(1 ,impPoints.size());
 		assertEquals(1 ,data.size());
 	}
-}
\ No newline at end of file
+	
+	@Test
+	void strategiesMatchAllPairsTest() throws NotInDatabaseException {
+		List<Segment> givenSegment = new ArrayList<>();
+		
+		//star of concurrent lines with a vertical and a horizontal
+		givenSegment.add(new Segment(new Point(-3, 0), new Point(3, 0)));
+		givenSegment.add(new Segment(new Point(0, -3), new Point(0, 3)));
+		givenSegment.add(new Segment(new Point(-3, -3), new Point(3, 3)));
+		givenSegment.add(new Segment(new Point(-3, 3), new Point(3, -3)));
+		
+		//crosses the star away from its center
+		givenSegment.add(new Segment(new Point(-3, 1), new Point(3, 2)));
+		
+		PointDatabase allPairs = new PointDatabase();
+		PointDatabase sweepLine = new PointDatabase();
+		PointDatabase grid = new PointDatabase();
+		
+		Set<Point> expected = ImplicitPointPreprocessor.compute(allPairs, givenSegment, ImplicitPointPreprocessor.Strategy.ALL_PAIRS);
+		Set<Point> actual = ImplicitPointPreprocessor.compute(sweepLine, givenSegment, ImplicitPointPreprocessor.Strategy.SWEEP_LINE);
+		Set<Point> gridActual = ImplicitPointPreprocessor.compute(grid, givenSegment, ImplicitPointPreprocessor.Strategy.GRID);
+		
+		assertEquals(4, expected.size());
+		assertEquals(expected, actual);
+		assertEquals(expected, gridActual);
+		
+		//same points, inserted in the same order, with the same generated names
+		assertEquals(allPairs.getPoints().toString(), sweepLine.getPoints().toString());
+		assertEquals(allPairs.getPoints().toString(), grid.getPoints().toString());
+	}
+	
+	@Test
+	void parallelMatchesSequentialTest() throws NotInDatabaseException {
+		List<Segment> givenSegment = new ArrayList<>();
+		
+		//a mesh of crossing lines; enough pairs to split across several tasks
+		for(int i = 0; i < 30; i++) {
+			givenSegment.add(new Segment(new Point(0, i), new Point(40, i + 7)));
+			givenSegment.add(new Segment(new Point(i, 0), new Point(i + 5, 40)));
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(4);
+		
+		for(ImplicitPointPreprocessor.Strategy strategy : ImplicitPointPreprocessor.Strategy.values()) {
+			PointDatabase sequential = new PointDatabase();
+			PointDatabase parallel = new PointDatabase();
+			
+			Set<Point> expected = ImplicitPointPreprocessor.compute(sequential, givenSegment, strategy);
+			Set<Point> actual = ImplicitPointPreprocessor.compute(parallel, givenSegment, strategy, pool);
+			
+			assertFalse(expected.isEmpty());
+			assertEquals(expected, actual);
+			
+			//same generated names, in the same order
+			assertEquals(sequential.getPoints().toString(), parallel.getPoints().toString());
+		}
+		
+		pool.shutdown();
+		
+		assertThrows(NullPointerException.class, () -> {ImplicitPointPreprocessor.compute(new PointDatabase(), givenSegment, ImplicitPointPreprocessor.Strategy.GRID, null);});
+	}
+	
+	@Test
+	void widelySpreadTest() throws NotInDatabaseException {
+		List<Segment> givenSegment = new ArrayList<>();
+		
+		//tiny crossing segments near the origin and one far away: more cells than an int can number
+		givenSegment.add(new Segment(new Point(0, 0), new Point(0.001, 0.001)));
+		givenSegment.add(new Segment(new Point(0, 0.001), new Point(0.001, 0)));
+		givenSegment.add(new Segment(new Point(0.002, 0), new Point(0.003, 0.001)));
+		givenSegment.add(new Segment(new Point(1e7, 0), new Point(1e7 + 0.001, 0.001)));
+		
+		SegmentGrid grid = new SegmentGrid(givenSegment);
+		SegmentPairs pairs = grid.candidatePairs();
+		
+		//the far segment shares no cell key with the others
+		assertEquals(1, pairs.size());
+		assertEquals(SegmentPairs.pack(0, 1), pairs.get(0));
+		assertEquals(List.of(givenSegment.get(3)), grid.segmentsNear(new Point(1e7, 0)));
+		assertTrue(grid.segmentsNear(new Point(2e7, 0)).isEmpty());
+		
+		PointDatabase allPairs = new PointDatabase();
+		PointDatabase gridPoints = new PointDatabase();
+		
+		Set<Point> expected = ImplicitPointPreprocessor.compute(allPairs, givenSegment, ImplicitPointPreprocessor.Strategy.ALL_PAIRS);
+		Set<Point> actual = ImplicitPointPreprocessor.compute(gridPoints, givenSegment, ImplicitPointPreprocessor.Strategy.GRID);
+		
+		assertEquals(1, expected.size());
+		assertEquals(expected, actual);
+	}
+	
+	@Test
+	void incidencesTest() throws NotInDatabaseException {
+		List<Segment> givenSegment = new ArrayList<>();
+		
+		//star of concurrent lines, crossed once away from its center
+		givenSegment.add(new Segment(new Point(-3, 0), new Point(3, 0)));
+		givenSegment.add(new Segment(new Point(0, -3), new Point(0, 3)));
+		givenSegment.add(new Segment(new Point(-3, -3), new Point(3, 3)));
+		givenSegment.add(new Segment(new Point(-3, 3), new Point(3, -3)));
+		givenSegment.add(new Segment(new Point(1, -3), new Point(1, 3)));
+		
+		ImplicitPoints impPoints = ImplicitPointPreprocessor.compute(new PointDatabase(), givenSegment);
+		
+		assertEquals(Set.of(givenSegment.get(0), givenSegment.get(1), givenSegment.get(2), givenSegment.get(3)),
+				     impPoints.getSegments(new Point(0, 0)));
+		assertEquals(Set.of(givenSegment.get(0), givenSegment.get(4)), impPoints.getSegments(new Point(1, 0)));
+		assertEquals(Set.of(givenSegment.get(2), givenSegment.get(4)), impPoints.getSegments(new Point(1, 1)));
+		assertTrue(impPoints.getSegments(new Point(3, 3)).isEmpty());
+		
+		//the parallel run collects the same incidences
+		ForkJoinPool pool = new ForkJoinPool(2);
+		ImplicitPoints parallel = ImplicitPointPreprocessor.compute(new PointDatabase(), givenSegment,
+				                                                    ImplicitPointPreprocessor.Strategy.ALL_PAIRS, pool);
+		pool.shutdown();
+		
+		assertEquals(impPoints.getIncidences(), parallel.getIncidences());
+	}
+	
+	@Test
+	void nearlyIdenticalPointsTest() {
+		//the same crossing computed from two different pairs of segments
+		Point p1 = new Point(2.4, 3.5999999999999996);
+		Point p2 = new Point(2.4, 3.6);
+		
+		assertEquals(p1, p2);
+		assertEquals(p1.hashCode(), p2.hashCode());
+		
+		PointDatabase data = new PointDatabase();
+		data.put(p1);
+		data.put(p2);
+		
+		assertEquals(1, data.size());
+		
+		assertNotEquals(new Point(2.4, 3.6), new Point(2.4, 3.600002));
+	}
+}
@@ -4,9 +4,13 @@ import static org.junit.Assert.*;
 import org.junit.Test;
 
 import geometry_objects.Segment;
+import geometry_objects.SegmentFactory;
 import geometry_objects.points.Point;
+import preprocessor.delegates.SegmentSplitter;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
 
@@ -101,4 +105,92 @@ public class SegmentTest {
         assertTrue(orderedPoints.first().equals(p1));
         assertTrue(orderedPoints.last().equals(p2));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIsCollinearWith() {
+        // Same line: reversed, shorter, and further along
+        Segment segment1 = new Segment(new Point(0, 1), new Point(2, 2));
+        Segment segment2 = new Segment(new Point(6, 4), new Point(4, 3));
+        assertTrue(segment1.isCollinearWith(segment2));
+        assertEquals(segment1.getLineKey(), segment2.getLineKey());
+
+        // Parallel is not collinear
+        Segment segment3 = new Segment(new Point(0, 2), new Point(2, 3));
+        assertFalse(segment1.isCollinearWith(segment3));
+
+        // Vertical lines
+        Segment segment4 = new Segment(new Point(3, 0), new Point(3, 1));
+        Segment segment5 = new Segment(new Point(3, 9), new Point(3, 5.5));
+        Segment segment6 = new Segment(new Point(3.5, 0), new Point(3.5, 1));
+        assertTrue(segment4.isCollinearWith(segment5));
+        assertFalse(segment4.isCollinearWith(segment6));
+
+        // Round-off in a computed point does not change the line
+        Segment segment7 = new Segment(new Point(0, 0), new Point(0.1 + 0.2, 0.3));
+        Segment segment8 = new Segment(new Point(0.3, 0.3), new Point(1, 1));
+        assertTrue(segment7.isCollinearWith(segment8));
+
+        // A segment without length lies on no line
+        assertNull(new Segment(new Point(1, 1), new Point(1, 1)).getLineKey());
+    }
+
+    @Test
+    public void testSegmentFactory() {
+        SegmentFactory factory = new SegmentFactory();
+
+        Point a = new Point("A", 0, 0);
+        Point b = new Point("B", 4, 1);
+
+        // One object per pair of endpoints, in either direction
+        Segment segment = factory.get(a, b);
+        assertSame(segment, factory.get(b, a));
+        assertSame(segment, factory.get(new Point(4, 1), new Point(0, 0)));
+        assertSame(segment, factory.intern(new Segment(b, a)));
+        assertEquals(1, factory.size());
+        assertEquals(2, factory.numPoints());
+
+        Segment other = new Segment(a, new Point(1, 1));
+        assertSame(other, factory.intern(other));
+        assertEquals(2, factory.size());
+
+        assertNull(factory.lookup(b, new Point(1, 1)));
+        assertFalse(factory.contains(b, new Point(1, 1)));
+
+        // Equal segments hash alike in either direction
+        assertEquals(new Segment(a, b).hashCode(), new Segment(b, a).hashCode());
+        assertEquals(new Segment(a, b), new Segment(b, a));
+        assertNotEquals(new Segment(a, b), new Segment(a, new Point(4, 2)));
+    }
+
+    @Test
+    public void testSegmentSplitter() {
+        // Endpoints given greater first; points in scrambled order
+        Segment segment = new Segment(new Point("B", 40, 80), new Point("A", 0, 0));
+
+        List<Point> points = new ArrayList<>();
+        for (int i = 1; i < 40; i++) {
+            int x = (i * 17) % 40;
+            if (x != 0) points.add(new Point(x, 2 * x));
+        }
+
+        Point[] ordered = SegmentSplitter.orderAlong(segment, points);
+
+        assertEquals(points.size() + 2, ordered.length);
+        assertEquals("A", ordered[0].getName());
+        assertEquals("B", ordered[ordered.length - 1].getName());
+        for (int i = 1; i < ordered.length; i++) {
+            assertTrue(ordered[i - 1].compareTo(ordered[i]) < 0);
+        }
+
+        // Consecutive sub-segments, each from its lesser endpoint
+        Set<Segment> subSegments = new HashSet<>();
+        SegmentSplitter.split(segment, points, new SegmentFactory(), subSegments);
+
+        assertEquals(points.size() + 1, subSegments.size());
+        assertTrue(subSegments.contains(new Segment(new Point(0, 0), new Point(1, 2))));
+        assertTrue(subSegments.contains(new Segment(new Point(39, 78), new Point(40, 80))));
+        for (Segment sub : subSegments) {
+            assertTrue(sub.getPoint1().compareTo(sub.getPoint2()) < 0);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package utilities.eq_classes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.junit.jupiter.api.Test;
+
+class EquivalenceClassesTest
+{
+	// Integers are equivalent when they agree mod 3; the smallest is canonical
+	private static final Comparator<Integer> MOD_3 = (a, b) -> Integer.compare(a % 3, b % 3);
+
+	private static final Comparator<Integer> NATURAL = Comparator.naturalOrder();
+
+	@Test
+	void test_add_by_belongs()
+	{
+		EquivalenceClasses<Integer> classes = new EquivalenceClasses<Integer>(MOD_3);
+
+		assertTrue(classes.addAll(Arrays.asList(4, 7, 1, 5, 9, 2, 3)));
+		assertFalse(classes.add(7));
+		assertFalse(classes.add(null));
+
+		assertEquals(7, classes.size());
+		assertEquals(3, classes.numClasses());
+
+		assertTrue(classes.contains(5));
+		assertFalse(classes.contains(6));
+
+		assertEquals(0, classes.indexOfClass(1));
+		assertEquals(1, classes.indexOfClass(2));
+		assertEquals(2, classes.indexOfClass(3));
+		assertEquals(-1, classes.indexOfClass(6));
+
+		// Every member of a class compares 0, so the first added stays canonical
+		assertEquals(Integer.valueOf(4), classes.classOf(7).canonical());
+		assertEquals(3, classes.classOf(7).size());
+		assertEquals(Arrays.asList(4, 7, 1, 5, 9, 2, 3), classes.elements());
+	}
+
+	@Test
+	void test_add_by_key()
+	{
+		// Keyed by last digit; canonical is the least
+		EquivalenceClasses<Integer> classes = new EquivalenceClasses<Integer>(NATURAL)
+		{
+			@Override
+			protected Object classKey(Integer element) { return element % 10; }
+		};
+
+		classes.addAll(Arrays.asList(41, 32, 21, 11, 52, 2, 31));
+
+		assertEquals(2, classes.numClasses());
+		assertEquals(Integer.valueOf(11), classes.classOf(41).canonical());
+		assertEquals(Integer.valueOf(2), classes.classOf(52).canonical());
+		assertEquals(Arrays.asList(41, 21, 31), classes.classOf(11).rest());
+	}
+
+	@Test
+	void test_union()
+	{
+		EquivalenceClasses<Integer> classes = new EquivalenceClasses<Integer>(NATURAL)
+		{
+			@Override
+			protected Object classKey(Integer element) { return element / 10; }
+		};
+
+		classes.addAll(Arrays.asList(15, 12, 25, 38, 31, 44));
+		assertEquals(4, classes.numClasses());
+
+		assertTrue(classes.union(12, 25));
+		assertTrue(classes.union(38, 44));
+		assertFalse(classes.union(15, 25));
+		assertFalse(classes.union(15, 99));
+
+		assertEquals(2, classes.numClasses());
+		assertSame(classes.classOf(15), classes.classOf(25));
+		assertEquals(Integer.valueOf(12), classes.classOf(25).canonical());
+		assertEquals(Integer.valueOf(31), classes.classOf(44).canonical());
+
+		// Keys of merged classes lead to the merged class
+		classes.add(47);
+		classes.add(22);
+		assertEquals(2, classes.numClasses());
+		assertEquals(4, classes.classOf(22).size());
+		assertEquals(4, classes.classOf(31).size());
+
+		int members = 0;
+		for (LinkedEquivalenceClass<Integer> cls : classes) members += cls.size();
+		assertEquals(classes.size(), members);
+	}
+
+	@Test
+	void test_classes_read_only()
+	{
+		EquivalenceClasses<Integer> classes = new EquivalenceClasses<Integer>(MOD_3);
+		classes.addAll(Arrays.asList(4, 7, 5));
+
+		LinkedEquivalenceClass<Integer> cls = classes.classOf(7);
+		assertTrue(cls.isOwned());
+
+		assertThrows(UnsupportedOperationException.class, () -> cls.remove(7));
+		assertThrows(UnsupportedOperationException.class, () -> cls.add(10));
+		assertThrows(UnsupportedOperationException.class, () -> cls.clear());
+		assertThrows(UnsupportedOperationException.class, () -> cls.clearNonCanonical());
+		assertThrows(UnsupportedOperationException.class, () -> cls.removeCanonical());
+		assertThrows(UnsupportedOperationException.class, () -> cls.demoteAndSetCanonical(7));
+		for (LinkedEquivalenceClass<Integer> other : classes) {
+			assertThrows(UnsupportedOperationException.class, () -> other.clear());
+		}
+
+		// Nothing changed behind the back of the classes
+		assertTrue(classes.contains(7));
+		assertEquals(3, classes.size());
+		assertEquals(2, classes.numClasses());
+		assertEquals(Integer.valueOf(4), cls.canonical());
+		assertEquals(Arrays.asList(7), cls.rest());
+
+		// Changes through the classes still reach the class
+		assertTrue(classes.add(10));
+		assertEquals(3, cls.size());
+
+		classes.clear();
+		assertEquals(0, classes.numClasses());
+		assertFalse(classes.iterator().hasNext());
+	}
+
+	@Test
+	void test_linked_class()
+	{
+		LinkedEquivalenceClass<Integer> cls = new LinkedEquivalenceClass<Integer>(MOD_3);
+		assertFalse(cls.isOwned());
+
+		assertTrue(cls.isEmpty());
+		assertTrue(cls.add(7));
+		assertTrue(cls.add(4));
+		assertFalse(cls.add(4));
+		assertFalse(cls.add(5));
+
+		assertEquals(Integer.valueOf(7), cls.canonical());
+		assertTrue(cls.demoteAndSetCanonical(4));
+		assertEquals(Integer.valueOf(4), cls.canonical());
+		assertEquals(Arrays.asList(7), cls.rest());
+
+		assertTrue(cls.removeCanonical());
+		assertEquals(Integer.valueOf(7), cls.canonical());
+		assertEquals(1, cls.size());
+	}
+}